@@ -30,9 +30,9 @@ public class BinaryArithmeticExpression implements Expression {
     }
 
     @Override
-    public CellValue evaluate(SpreadsheetModel spreadsheet) {
-        CellValue leftValue = left.evaluate(spreadsheet);
-        CellValue rightValue = right.evaluate(spreadsheet);
+    public CellValue evaluate(SpreadsheetModel spreadsheet, Cell origin) {
+        CellValue leftValue = left.evaluate(spreadsheet, origin);
+        CellValue rightValue = right.evaluate(spreadsheet, origin);
 
         // Vérifier si l'une des opérandes est une erreur
         if (leftValue.isError()) return leftValue;
@@ -65,4 +65,13 @@ public class BinaryArithmeticExpression implements Expression {
                 return CellValue.ofError(CellError.VALUE_ERROR);
         }
     }
+
+    @Override
+    public void accept(ExpressionVisitor visitor) {
+        if (operator == Operator.POWER) {
+            visitor.power();
+        }
+        left.accept(visitor);
+        right.accept(visitor);
+    }
 }
\ No newline at end of file
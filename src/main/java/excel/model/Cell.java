@@ -1,58 +1,49 @@
 package excel.model;
 
 import excel.tools.ExcelConverter;
-import javafx.beans.property.*;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
+/**
+ * Cellule du tableur, en Java pur : aucune propriété JavaFX.
+ * Les changements de valeur sont signalés en fin de recalcul aux {@link SpreadsheetListener} du modèle.
+ */
 public class Cell {
     private final int row;
     private final int column;
-    private final StringProperty content = new SimpleStringProperty("");
-    private final ObjectProperty<CellValue> value = new SimpleObjectProperty<>(CellValue.ofText(""));
-    private final StringProperty displayValue = new SimpleStringProperty("");
-    private Expression expression;
+    private volatile String content = ""; // lu par le thread JavaFX pendant les passes du thread de recalcul
+    // La valeur n'est pas un champ de la cellule : elle est rangée en colonnes dans le CellStore
+    private CompiledFormula formula;
     private boolean evaluating = false; // Pour détecter les références circulaires
     private final SpreadsheetModel spreadsheet;
 
-    private IntegerProperty sumCountAndPowInCellModel = new SimpleIntegerProperty(0);
+    // Nombre de fonctions et de puissances de la formule, calculé sur l'arbre lors de la construction
+    private int sumCountAndPow = 0;
 
-    public int getSumCountAndPowInCellModel() {
-        return sumCountAndPowInCellModel.get();
+    public int getSumCountAndPow() {
+        return sumCountAndPow;
     }
 
-    public IntegerProperty sumCountAndPowInCellModelProperty() {
-        return sumCountAndPowInCellModel;
-    }
-
-    public void setSumCountAndPowInCellModel(int sumCountAndPowInCellModel) {
-        this.sumCountAndPowInCellModel.set(sumCountAndPowInCellModel);
+    private void setSumCountAndPow(int sumCountAndPow) {
+        spreadsheet.adjustSumCountAndPow(sumCountAndPow - this.sumCountAndPow);
+        this.sumCountAndPow = sumCountAndPow;
     }
 
     public Cell(int row, int column, SpreadsheetModel spreadsheet) {
         this.row = row;
         this.column = column;
         this.spreadsheet = spreadsheet;
+    }
 
-        // Mettre à jour la valeur quand le contenu change
-        content.addListener((obs, oldVal, newVal) -> {
-            String contentText = content.get();
-            updateValue();
-            this.setContent(contentText);
-        });
-
-        // Mettre à jour la valeur d'affichage quand la valeur change
-        value.addListener((obs, oldVal, newVal) -> {
-            if (newVal != null) {
-                displayValue.set(newVal.format());
-            } else {
-                displayValue.set("");
-            }
-        });
-
-        sumCountAndPowInCellModel.addListener((obs, oldVal, newVal) -> {
-            spreadsheet.setSumCountAndPowInSpreadheet(newVal.intValue() - oldVal.intValue());
+    public int getRow() {
+        return row;
+    }
 
-        });
+    public int getColumn() {
+        return column;
     }
 
     /**
@@ -62,47 +53,44 @@ public class Cell {
         return ExcelConverter.columnIndexToLetter(column) + (row + 1);
     }
 
-    public StringProperty contentProperty() {
-        return content;
-    }
-
     public String getContent() {
-        return content.get();
+        return content;
     }
 
+    /**
+     * Modifie le contenu ; s'il change, la cellule et ses dépendants sont recalculés
+     */
     public void setContent(String content) {
-        this.content.set(content);
+        String newContent = content != null ? content : "";
+        if (!newContent.equals(this.content)) {
+            this.content = newContent;
+            spreadsheet.notifyCellChanged(this);
+        }
     }
 
-    public ObjectProperty<CellValue> valueProperty() {
-        return value;
+    public CellValue getValue() {
+        return spreadsheet.getCellStore().getValue(row, column);
     }
 
     /**
-     * Propriété pour la valeur formatée à afficher
+     * Valeur formatée à afficher
      */
-    public StringProperty displayValueProperty() {
-        return displayValue;
-    }
-
-
-    public CellValue getValue() {
-        return value.get();
+    public String getDisplayValue() {
+        CellValue current = getValue();
+        return current != null ? current.format() : "";
     }
 
     private void setValue(CellValue value) {
-        this.value.set(value);
-        notifyDisplayValue();
-    }
-    private void notifyDisplayValue(){
-        if (getValue() != null) {
-            displayValue.set(getValue().format());
-        }
+        spreadsheet.writeValue(row, column, value);
     }
 
 
-    private void setExpression(Expression expression) {
-        this.expression = expression;
+    public CompiledFormula getFormula() {
+        return formula;
+    }
+
+    private void setFormula(CompiledFormula formula) {
+        this.formula = formula;
     }
 
     public boolean isEvaluating() {
@@ -115,53 +103,94 @@ public class Cell {
 
 
     /**
-     * Met à jour la valeur calculée de la cellule en fonction de son contenu
+     * Reconstruit l'expression de la cellule à partir de son contenu,
+     * remplace ses antécédents dans le graphe de dépendances et met à jour la valeur des littéraux
      */
-    public void updateValue() {
-        String contentText = content.get();
+    void rebuild() {
+        rebuild(null);
+    }
+
+    /**
+     * Reconstruit la cellule avec une formule déjà compilée (compilation parallèle d'un lot),
+     * ou en compilant son contenu si precompiled est null
+     */
+    void rebuild(CompiledFormula precompiled) {
+        String contentText = content;
+        DependencyGraph graph = spreadsheet.getDependencyGraph();
 
         if (contentText == null || contentText.isEmpty()) {
-            setValue(CellValue.ofText(""));
-            setExpression(null);
-            setSumCountAndPowInCellModel(0);
+            setValue(CellValue.EMPTY);
+            setFormula(null);
+            graph.clearPrecedents(this);
+            setSumCountAndPow(0);
             return;
         }
 
         try {
             // Si c'est une expression (commence par =)
             if (contentText.startsWith("=")) {
-                // Utiliser le Builder pour construire et évaluer l'expression
-                Expression expr = spreadsheet.getExpressionBuilder().build(contentText.substring(1).trim(), this);
-                setExpression(expr);
-
-                // Marquer la cellule comme étant en cours d'évaluation
-                setEvaluating(true);
-
-                try {
-                    // Évaluer l'expression
-                    CellValue result = expr.evaluate(spreadsheet);
-                    setValue(result);
-                } catch (CircularReferenceException e) {
-                    setValue(CellValue.ofError(CellError.CIRCULAR_REF));
-                } catch (Exception e) {
-                    setValue(CellValue.ofError(CellError.VALUE_ERROR));
-                } finally {
-                    // Fin de l'évaluation
-                    setEvaluating(false);
-                }
+                // Utiliser le Builder pour compiler la formule, évaluée ensuite par le moteur de recalcul
+                CompiledFormula compiled = precompiled != null ? precompiled
+                        : spreadsheet.getExpressionBuilder().compile(formulaText(contentText), row, column);
+                setFormula(compiled);
+                setSumCountAndPow(compiled.getFunctionAndPowerCount());
+                Set<Cell> precedents = new HashSet<>();
+                List<CellRange> ranges = new ArrayList<>();
+                compiled.resolvePrecedents(spreadsheet, this, precedents, ranges);
+                graph.setPrecedents(this, precedents, ranges);
             } else {
                 // Essayer d'interpréter comme une valeur littérale
                 setValue(parseContent(contentText));
-                setExpression(null);
-                setSumCountAndPowInCellModel(0);
+                setFormula(null);
+                graph.clearPrecedents(this);
+                setSumCountAndPow(0);
             }
         } catch (Exception e) {
             setValue(CellValue.ofError(CellError.SYNTAX_ERROR));
-            setExpression(null);
+            setFormula(null);
+            graph.clearPrecedents(this);
+            setSumCountAndPow(0);
+        }
+    }
+
+    /**
+     * Restaure une cellule chargée depuis un fichier : l'expression est reconstruite et inscrite
+     * dans le graphe, mais la formule prend la valeur enregistrée au lieu d'être réévaluée
+     */
+    void restore(String content, CellValue cachedValue) {
+        this.content = content != null ? content : "";
+        rebuild();
+        if (formula != null) {
+            setValue(cachedValue);
         }
+    }
+
+    /**
+     * Texte de la formule à compiler : le contenu sans le signe =
+     */
+    static String formulaText(String content) {
+        return content.substring(1).trim();
+    }
 
-        // Notifier les cellules dépendantes (si nécessaire)
-        spreadsheet.notifyCellChanged(this);
+    /**
+     * Évalue l'expression déjà construite, sans réanalyser le contenu
+     */
+    private void evaluateExpression() {
+        // Marquer la cellule comme étant en cours d'évaluation
+        setEvaluating(true);
+
+        try {
+            // Évaluer l'expression
+            CellValue result = formula.getExpression().evaluate(spreadsheet, this);
+            setValue(result);
+        } catch (CircularReferenceException e) {
+            setValue(CellValue.ofError(CellError.CIRCULAR_REF));
+        } catch (Exception e) {
+            setValue(CellValue.ofError(CellError.VALUE_ERROR));
+        } finally {
+            // Fin de l'évaluation
+            setEvaluating(false);
+        }
     }
 
     /**
@@ -188,11 +217,19 @@ public class Cell {
     }
 
     /**
-     * Réévalue la valeur de la cellule
+     * Marque la cellule comme faisant partie d'une référence circulaire
+     */
+    void markCircular() {
+        setValue(CellValue.ofError(CellError.CIRCULAR_REF));
+    }
+
+    /**
+     * Réévalue la valeur de la cellule à partir de son expression existante.
+     * Les écouteurs du modèle sont prévenus par le moteur de recalcul, en fin de passe.
      */
     public void recalculate() {
-        if (expression != null) {
-            updateValue();
+        if (formula != null) {
+            evaluateExpression();
         }
     }
 
@@ -201,8 +238,4 @@ public class Cell {
         return "Cell[" + getAddress() + ", content=" + getContent() + ", value=" + getValue() + "]";
     }
 
-    public void setCounterSumAndPowInCell(int sumCountAndPowInCell) {
-        setSumCountAndPowInCellModel(sumCountAndPowInCell);
-    }
-
 }
\ No newline at end of file
@@ -0,0 +1,68 @@
+package excel.model;
+
+/**
+ * Plage rectangulaire de cellules (bornes incluses)
+ */
+public final class CellRange {
+    private final int firstRow;
+    private final int firstColumn;
+    private final int lastRow;
+    private final int lastColumn;
+
+    public CellRange(int firstRow, int firstColumn, int lastRow, int lastColumn) {
+        this.firstRow = firstRow;
+        this.firstColumn = firstColumn;
+        this.lastRow = lastRow;
+        this.lastColumn = lastColumn;
+    }
+
+    public int getFirstRow() {
+        return firstRow;
+    }
+
+    public int getFirstColumn() {
+        return firstColumn;
+    }
+
+    public int getLastRow() {
+        return lastRow;
+    }
+
+    public int getLastColumn() {
+        return lastColumn;
+    }
+
+    public boolean contains(int row, int column) {
+        return row >= firstRow && row <= lastRow && column >= firstColumn && column <= lastColumn;
+    }
+
+    /**
+     * Nombre de cellules couvertes par la plage
+     */
+    public long size() {
+        return (long) (lastRow - firstRow + 1) * (lastColumn - firstColumn + 1);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CellRange)) return false;
+        CellRange other = (CellRange) o;
+        return firstRow == other.firstRow && firstColumn == other.firstColumn
+                && lastRow == other.lastRow && lastColumn == other.lastColumn;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = firstRow;
+        result = 31 * result + firstColumn;
+        result = 31 * result + lastRow;
+        result = 31 * result + lastColumn;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "CellRange[" + firstRow + "," + firstColumn + ":" + lastRow + "," + lastColumn + "]";
+    }
+}
@@ -0,0 +1,335 @@
+package excel.model;
+
+import java.util.function.Consumer;
+
+/**
+ * Stockage creux des cellules, découpé en tuiles de 64x64 allouées à la demande.
+ * Une région vide ne coûte qu'une référence nulle dans le répertoire des tuiles.
+ * <p>
+ * Les valeurs sont rangées en colonnes dans chaque tuile : un type par cellule ({@code byte[]}),
+ * les nombres et booléens dans un {@code double[]}, les textes et erreurs dans une table annexe
+ * allouée au premier besoin. À l'intérieur d'une tuile, les cellules d'une même colonne sont contiguës.
+ * <p>
+ * Chaque colonne de tuile (bloc de 64 lignes) garde un résumé de ses valeurs ({@link RangeStatistics}
+ * des nombres et nombre d'erreurs), invalidé à l'écriture et recalculé à la première lecture.
+ * Toutes les fonctions de plage interrogent cet index : une plage de n lignes coûte O(n/64 + 64)
+ * par colonne, et des plages qui se chevauchent (totaux cumulés) partagent les mêmes résumés.
+ */
+public class CellStore {
+    static final int TILE_SHIFT = 6;
+    static final int TILE_SIZE = 1 << TILE_SHIFT;
+    private static final int TILE_MASK = TILE_SIZE - 1;
+
+    // Types des valeurs stockées
+    static final byte NONE = 0; // cellule jamais créée
+    static final byte TEXT = 1;
+    static final byte NUMBER = 2;
+    static final byte BOOLEAN = 3;
+    static final byte ERROR = 4;
+
+    private static final class Tile {
+        final Cell[] cells = new Cell[TILE_SIZE * TILE_SIZE];
+        final byte[] types = new byte[TILE_SIZE * TILE_SIZE];
+        final double[] numbers = new double[TILE_SIZE * TILE_SIZE];
+        volatile Object[] objects; // String pour TEXT, CellError pour ERROR
+        // Résumé de chaque bloc (colonne de la tuile), alloué à la première lecture et protégé par le verrou de la tuile
+        RangeStatistics[] blockStatistics;
+        int[] blockErrors;
+        boolean[] blockValid;
+    }
+
+    private final int rowCount;
+    private final int columnCount;
+    private final int tileColumns;
+    private final Tile[] tiles;
+    private int populatedCount = 0;
+
+    public CellStore(int rowCount, int columnCount) {
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.tileColumns = (columnCount + TILE_MASK) >>> TILE_SHIFT;
+        int tileRows = (rowCount + TILE_MASK) >>> TILE_SHIFT;
+        this.tiles = new Tile[tileRows * tileColumns];
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    public boolean contains(int row, int column) {
+        return row >= 0 && row < rowCount && column >= 0 && column < columnCount;
+    }
+
+    /**
+     * Retourne la cellule existante, ou null si elle n'a jamais été créée
+     */
+    public Cell find(int row, int column) {
+        if (!contains(row, column)) {
+            return null;
+        }
+        Tile tile = tiles[tileIndex(row, column)];
+        return tile == null ? null : tile.cells[offsetInTile(row, column)];
+    }
+
+    /**
+     * Retourne la cellule en la créant (ainsi que sa tuile) si nécessaire
+     */
+    public Cell getOrCreate(int row, int column, SpreadsheetModel spreadsheet) {
+        if (!contains(row, column)) {
+            return null;
+        }
+        int index = tileIndex(row, column);
+        Tile tile = tiles[index];
+        if (tile == null) {
+            tile = new Tile();
+            tiles[index] = tile;
+        }
+        int offset = offsetInTile(row, column);
+        Cell cell = tile.cells[offset];
+        if (cell == null) {
+            // Une nouvelle cellule vaut le texte vide
+            invalidateBlock(tile, column);
+            tile.types[offset] = TEXT;
+            setObject(tile, offset, "");
+            cell = new Cell(row, column, spreadsheet);
+            tile.cells[offset] = cell;
+            populatedCount++;
+        }
+        return cell;
+    }
+
+    /**
+     * Nombre de cellules effectivement allouées
+     */
+    public int getPopulatedCount() {
+        return populatedCount;
+    }
+
+    /**
+     * Parcourt les cellules existantes ligne par ligne, en ne visitant que les tuiles allouées
+     */
+    public void forEach(Consumer<Cell> action) {
+        int tileRows = tiles.length / Math.max(tileColumns, 1);
+        for (int tileRow = 0; tileRow < tileRows; tileRow++) {
+            int firstRow = tileRow << TILE_SHIFT;
+            int lastRow = Math.min(firstRow + TILE_SIZE, rowCount);
+            for (int row = firstRow; row < lastRow; row++) {
+                for (int tileColumn = 0; tileColumn < tileColumns; tileColumn++) {
+                    Tile tile = tiles[tileRow * tileColumns + tileColumn];
+                    if (tile == null) {
+                        continue;
+                    }
+                    for (int c = 0; c < TILE_SIZE; c++) {
+                        Cell cell = tile.cells[(c << TILE_SHIFT) | (row & TILE_MASK)];
+                        if (cell != null) {
+                            action.accept(cell);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Parcourt les cellules existantes d'une colonne, de haut en bas
+     */
+    public void forEachInColumn(int column, Consumer<Cell> action) {
+        if (column < 0 || column >= columnCount) {
+            return;
+        }
+        int base = (column & TILE_MASK) << TILE_SHIFT;
+        for (int index = column >>> TILE_SHIFT; index < tiles.length; index += tileColumns) {
+            Tile tile = tiles[index];
+            if (tile == null) {
+                continue;
+            }
+            for (int r = 0; r < TILE_SIZE; r++) {
+                Cell cell = tile.cells[base | r];
+                if (cell != null) {
+                    action.accept(cell);
+                }
+            }
+        }
+    }
+
+    /**
+     * Type de la valeur stockée (NONE si la cellule n'existe pas), sans matérialiser de CellValue
+     */
+    byte getType(int row, int column) {
+        if (!contains(row, column)) {
+            return NONE;
+        }
+        Tile tile = tiles[tileIndex(row, column)];
+        return tile == null ? NONE : tile.types[offsetInTile(row, column)];
+    }
+
+    /**
+     * Valeur numérique stockée (nombres, et 1/0 pour les booléens)
+     */
+    double getNumber(int row, int column) {
+        return tiles[tileIndex(row, column)].numbers[offsetInTile(row, column)];
+    }
+
+    /**
+     * Matérialise la valeur d'une cellule existante. La lecture tolère une écriture concurrente
+     * (affichage pendant une passe de recalcul) : la valeur lue peut être transitoire,
+     * la valeur définitive étant publiée aux écouteurs en fin de passe.
+     */
+    CellValue getValue(int row, int column) {
+        Tile tile = tiles[tileIndex(row, column)];
+        int offset = offsetInTile(row, column);
+        Object[] objects;
+        Object object;
+        switch (tile.types[offset]) {
+            case NUMBER:
+                return CellValue.ofNumber(tile.numbers[offset]);
+            case BOOLEAN:
+                return CellValue.ofBoolean(tile.numbers[offset] != 0);
+            case ERROR:
+                objects = tile.objects;
+                object = objects != null ? objects[offset] : null;
+                return object instanceof CellError ? CellValue.ofError((CellError) object) : CellValue.EMPTY;
+            case TEXT:
+                objects = tile.objects;
+                object = objects != null ? objects[offset] : null;
+                return object instanceof String ? CellValue.ofText((String) object) : CellValue.EMPTY;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Range la valeur d'une cellule existante dans les colonnes de sa tuile
+     */
+    void setValue(int row, int column, CellValue value) {
+        Tile tile = tiles[tileIndex(row, column)];
+        int offset = offsetInTile(row, column);
+        invalidateBlock(tile, column);
+        switch (value.getType()) {
+            case NUMBER:
+                tile.types[offset] = NUMBER;
+                tile.numbers[offset] = value.getNumberValue();
+                setObject(tile, offset, null);
+                break;
+            case BOOLEAN:
+                tile.types[offset] = BOOLEAN;
+                tile.numbers[offset] = value.getBooleanValue() ? 1 : 0;
+                setObject(tile, offset, null);
+                break;
+            case ERROR:
+                tile.types[offset] = ERROR;
+                tile.numbers[offset] = 0;
+                setObject(tile, offset, value.getErrorValue());
+                break;
+            default:
+                tile.types[offset] = TEXT;
+                tile.numbers[offset] = 0;
+                setObject(tile, offset, value.getTextValue());
+                break;
+        }
+    }
+
+    /**
+     * Accumule dans statistics les nombres de la colonne entre deux lignes, et retourne le nombre
+     * de cellules en erreur. Les blocs entièrement couverts sont lus dans leur résumé, les autres cellule par cellule.
+     */
+    long summarize(int startRow, int endRow, int column, RangeStatistics statistics) {
+        if (column < 0 || column >= columnCount) {
+            return 0;
+        }
+        long errors = 0;
+        int row = Math.max(startRow, 0);
+        int last = Math.min(endRow, rowCount - 1);
+        while (row <= last) {
+            int blockEnd = row | TILE_MASK;
+            Tile tile = tiles[tileIndex(row, column)];
+            if (tile != null) {
+                if ((row & TILE_MASK) == 0 && blockEnd <= last) {
+                    synchronized (tile) {
+                        int block = column & TILE_MASK;
+                        if (tile.blockValid == null) {
+                            tile.blockStatistics = new RangeStatistics[TILE_SIZE];
+                            tile.blockErrors = new int[TILE_SIZE];
+                            tile.blockValid = new boolean[TILE_SIZE];
+                        }
+                        if (!tile.blockValid[block]) {
+                            summarizeBlock(tile, block);
+                        }
+                        statistics.merge(tile.blockStatistics[block]);
+                        errors += tile.blockErrors[block];
+                    }
+                } else {
+                    errors += accumulate(tile, column, row, Math.min(blockEnd, last), statistics);
+                }
+            }
+            row = blockEnd + 1;
+        }
+        return errors;
+    }
+
+    private static void summarizeBlock(Tile tile, int block) {
+        RangeStatistics statistics = tile.blockStatistics[block];
+        if (statistics == null) {
+            statistics = new RangeStatistics();
+            tile.blockStatistics[block] = statistics;
+        } else {
+            statistics.reset();
+        }
+        tile.blockErrors[block] = (int) accumulate(tile, block, 0, TILE_MASK, statistics);
+        tile.blockValid[block] = true;
+    }
+
+    private static long accumulate(Tile tile, int column, int fromRow, int toRow, RangeStatistics statistics) {
+        long errors = 0;
+        int base = (column & TILE_MASK) << TILE_SHIFT;
+        for (int r = fromRow; r <= toRow; r++) {
+            int offset = base | (r & TILE_MASK);
+            byte type = tile.types[offset];
+            if (type == NUMBER) {
+                statistics.accept(tile.numbers[offset]);
+            } else if (type == ERROR) {
+                errors++;
+            }
+        }
+        return errors;
+    }
+
+    private static void invalidateBlock(Tile tile, int column) {
+        synchronized (tile) {
+            if (tile.blockValid != null) {
+                tile.blockValid[column & TILE_MASK] = false;
+            }
+        }
+    }
+
+    // La table annexe n'est allouée qu'au premier texte (ou erreur) non vide de la tuile ;
+    // l'allocation est synchronisée car un niveau de recalcul peut écrire dans la tuile depuis plusieurs threads
+    private static void setObject(Tile tile, int offset, Object object) {
+        Object[] objects = tile.objects;
+        if (objects == null) {
+            if (object == null || "".equals(object)) {
+                return;
+            }
+            synchronized (tile) {
+                objects = tile.objects;
+                if (objects == null) {
+                    objects = new Object[TILE_SIZE * TILE_SIZE];
+                    tile.objects = objects;
+                }
+            }
+        }
+        objects[offset] = object;
+    }
+
+    private int tileIndex(int row, int column) {
+        return (row >>> TILE_SHIFT) * tileColumns + (column >>> TILE_SHIFT);
+    }
+
+    private static int offsetInTile(int row, int column) {
+        return ((column & TILE_MASK) << TILE_SHIFT) | (row & TILE_MASK);
+    }
+}
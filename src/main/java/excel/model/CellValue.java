@@ -1,7 +1,9 @@
 package excel.model;
 
 /**
- * Représente une valeur typée d'une cellule (texte, nombre, booléen, erreur)
+ * Représente une valeur typée d'une cellule (texte, nombre, booléen, erreur).
+ * Les valeurs des cellules sont stockées en colonnes dans le {@link CellStore} ;
+ * un CellValue n'en est qu'une vue matérialisée à la lecture.
  */
 public class CellValue {
     public enum Type {
@@ -13,6 +15,20 @@ public class CellValue {
     private final double numberValue;
     private final boolean booleanValue;
     private final CellError errorValue;
+    // Texte formaté pour l'affichage, calculé au premier appel de format()
+    private String formatted;
+
+    // Valeurs canoniques : une seule instance pour le texte vide, chaque booléen et chaque erreur
+    public static final CellValue EMPTY = new CellValue(Type.TEXT, "", 0, false, null);
+    public static final CellValue TRUE = new CellValue(Type.BOOLEAN, null, 1, true, null);
+    public static final CellValue FALSE = new CellValue(Type.BOOLEAN, null, 0, false, null);
+    private static final CellValue[] ERRORS = new CellValue[CellError.values().length];
+
+    static {
+        for (CellError error : CellError.values()) {
+            ERRORS[error.ordinal()] = new CellValue(Type.ERROR, null, 0, false, error);
+        }
+    }
 
     private CellValue(Type type, String textValue, double numberValue, boolean booleanValue, CellError errorValue) {
         this.type = type;
@@ -23,19 +39,23 @@ public class CellValue {
     }
 
     public static CellValue ofText(String text) {
+        if (text != null && text.isEmpty()) {
+            return EMPTY;
+        }
         return new CellValue(Type.TEXT, text, 0, false, null);
     }
 
+    // Le texte d'un nombre, d'un booléen ou d'une erreur n'est construit qu'à la demande
     public static CellValue ofNumber(double number) {
-        return new CellValue(Type.NUMBER, String.valueOf(number), number, false, null);
+        return new CellValue(Type.NUMBER, null, number, false, null);
     }
 
     public static CellValue ofBoolean(boolean value) {
-        return new CellValue(Type.BOOLEAN, String.valueOf(value), value ? 1 : 0, value, null);
+        return value ? TRUE : FALSE;
     }
 
     public static CellValue ofError(CellError error) {
-        return new CellValue(Type.ERROR, error.toString(), 0, false, error);
+        return ERRORS[error.ordinal()];
     }
 
     public Type getType() {
@@ -43,7 +63,16 @@ public class CellValue {
     }
 
     public String getTextValue() {
-        return textValue;
+        switch (type) {
+            case NUMBER:
+                return String.valueOf(numberValue);
+            case BOOLEAN:
+                return String.valueOf(booleanValue);
+            case ERROR:
+                return errorValue.toString();
+            default:
+                return textValue;
+        }
     }
 
     public double getNumberValue() {
@@ -54,6 +83,10 @@ public class CellValue {
         return booleanValue;
     }
 
+    public CellError getErrorValue() {
+        return errorValue;
+    }
+
 
     public boolean isText() {
         return type == Type.TEXT;
@@ -72,12 +105,28 @@ public class CellValue {
     }
 
     /**
-     * Formate la valeur pour l'affichage
+     * Vrai pour un texte vide (cellule sans contenu), sans passer par le formatage
+     */
+    public boolean isEmpty() {
+        return type == Type.TEXT && (textValue == null || textValue.isEmpty());
+    }
+
+    /**
+     * Formate la valeur pour l'affichage ; le résultat est calculé une fois puis conservé
      */
     public String format() {
+        String result = formatted;
+        if (result == null) {
+            result = computeFormat();
+            formatted = result;
+        }
+        return result;
+    }
+
+    private String computeFormat() {
         switch (type) {
             case TEXT:
-                return textValue;
+                return textValue != null ? textValue : "";
             case NUMBER:
                 // Format simple pour les nombres sans décimales
                 if (numberValue == Math.floor(numberValue)) {
@@ -0,0 +1,156 @@
+package excel.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Écriture tamponnée vers un fichier : les valeurs sont encodées directement dans un tampon d'octets,
+ * vidé dans le canal lorsqu'il est plein. Le tampon est réutilisé d'une sauvegarde à l'autre (un par thread).
+ */
+final class ChannelOutput implements AutoCloseable {
+    private static final int BUFFER_SIZE = 1 << 18;
+    private static final ThreadLocal<ByteBuffer> BUFFERS =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private long written = 0;
+
+    ChannelOutput(FileChannel channel) {
+        this.channel = channel;
+        this.buffer = BUFFERS.get();
+        this.buffer.clear();
+    }
+
+    /**
+     * Nombre d'octets écrits depuis la création, y compris ceux encore dans le tampon
+     */
+    long getWritten() {
+        return written + buffer.position();
+    }
+
+    void putByte(int value) throws IOException {
+        ensure(1);
+        buffer.put((byte) value);
+    }
+
+    void putShort(int value) throws IOException {
+        ensure(2);
+        buffer.putShort((short) value);
+    }
+
+    void putInt(int value) throws IOException {
+        ensure(4);
+        buffer.putInt(value);
+    }
+
+    void putDouble(double value) throws IOException {
+        ensure(8);
+        buffer.putDouble(value);
+    }
+
+    /**
+     * Chaîne précédée de sa longueur en octets (int), encodée en UTF-8
+     */
+    void putString(String value) throws IOException {
+        if (isAscii(value)) {
+            putInt(value.length());
+            putAscii(value);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            putBytes(bytes);
+        }
+    }
+
+    /**
+     * Texte brut dans le jeu de caractères donné (format texte)
+     */
+    void putText(String value, Charset charset) throws IOException {
+        if (isAscii(value) && isAsciiCompatible(charset)) {
+            putAscii(value);
+        } else {
+            putBytes(value.getBytes(charset));
+        }
+    }
+
+    /**
+     * Entier en décimal, sans chaîne intermédiaire
+     */
+    void putDecimal(int value) throws IOException {
+        ensure(11);
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        int divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            buffer.put((byte) ('0' + value / divisor % 10));
+        }
+    }
+
+    private void putAscii(String value) throws IOException {
+        int i = 0;
+        int length = value.length();
+        while (i < length) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            int end = Math.min(length, i + buffer.remaining());
+            for (; i < end; i++) {
+                buffer.put((byte) value.charAt(i));
+            }
+        }
+    }
+
+    private void putBytes(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            int count = Math.min(bytes.length - offset, buffer.remaining());
+            buffer.put(bytes, offset, count);
+            offset += count;
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 128) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAsciiCompatible(Charset charset) {
+        return charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII)
+                || charset.equals(StandardCharsets.ISO_8859_1);
+    }
+}
@@ -35,9 +35,9 @@ public class ComparisonExpression implements Expression {
     }
 
     @Override
-    public CellValue evaluate(SpreadsheetModel spreadsheet) {
-        CellValue leftValue = left.evaluate(spreadsheet);
-        CellValue rightValue = right.evaluate(spreadsheet);
+    public CellValue evaluate(SpreadsheetModel spreadsheet, Cell origin) {
+        CellValue leftValue = left.evaluate(spreadsheet, origin);
+        CellValue rightValue = right.evaluate(spreadsheet, origin);
 
         // Vérifier si l'une des opérandes est une erreur
         if (leftValue.isError()) return leftValue;
@@ -94,4 +94,10 @@ public class ComparisonExpression implements Expression {
             default: return CellValue.ofError(CellError.VALUE_ERROR);
         }
     }
+
+    @Override
+    public void accept(ExpressionVisitor visitor) {
+        left.accept(visitor);
+        right.accept(visitor);
+    }
 }
\ No newline at end of file
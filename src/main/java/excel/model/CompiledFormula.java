@@ -0,0 +1,139 @@
+package excel.model;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Formule compilée et immuable : l'arbre d'expression et ses métadonnées
+ * (références, plages, nombre de fonctions et de puissances).
+ * Les coordonnées sont relatives à la cellule source, de sorte qu'une même instance
+ * peut être partagée entre cellules et entre threads.
+ */
+public final class CompiledFormula {
+    private final Expression expression;
+    private final int[] references; // paires (décalage ligne, décalage colonne)
+    private final int[] ranges;     // quadruplets (début ligne, début colonne, fin ligne, fin colonne)
+    private final int functionCount;
+    private final int powerCount;
+
+    private CompiledFormula(Expression expression, int[] references, int[] ranges, int functionCount, int powerCount) {
+        this.expression = expression;
+        this.references = references;
+        this.ranges = ranges;
+        this.functionCount = functionCount;
+        this.powerCount = powerCount;
+    }
+
+    /**
+     * Compile les métadonnées de l'expression en un seul parcours de l'arbre
+     */
+    public static CompiledFormula of(Expression expression) {
+        Collector collector = new Collector();
+        expression.accept(collector);
+        return new CompiledFormula(expression,
+                Arrays.copyOf(collector.references, collector.referenceSize),
+                Arrays.copyOf(collector.ranges, collector.rangeSize),
+                collector.functionCount, collector.powerCount);
+    }
+
+    public Expression getExpression() {
+        return expression;
+    }
+
+    public int getReferenceCount() {
+        return references.length / 2;
+    }
+
+    public int getReferenceRowOffset(int index) {
+        return references[2 * index];
+    }
+
+    public int getReferenceColumnOffset(int index) {
+        return references[2 * index + 1];
+    }
+
+    public int getRangeCount() {
+        return ranges.length / 4;
+    }
+
+    /**
+     * Plage d'indice donné, en coordonnées absolues pour la cellule source
+     */
+    public CellRange getRange(int index, int originRow, int originColumn) {
+        int base = 4 * index;
+        return new CellRange(originRow + ranges[base], originColumn + ranges[base + 1],
+                originRow + ranges[base + 2], originColumn + ranges[base + 3]);
+    }
+
+    public int getFunctionCount() {
+        return functionCount;
+    }
+
+    public int getPowerCount() {
+        return powerCount;
+    }
+
+    public int getFunctionAndPowerCount() {
+        return functionCount + powerCount;
+    }
+
+    /**
+     * Résout les antécédents de la formule pour la cellule source donnée
+     */
+    public void resolvePrecedents(SpreadsheetModel spreadsheet, Cell origin, Set<Cell> precedents, List<CellRange> rangePrecedents) {
+        for (int i = 0; i < getReferenceCount(); i++) {
+            Cell cell = spreadsheet.getCell(origin.getRow() + getReferenceRowOffset(i),
+                    origin.getColumn() + getReferenceColumnOffset(i));
+            if (cell != null) {
+                precedents.add(cell);
+            }
+        }
+        for (int i = 0; i < getRangeCount(); i++) {
+            CellRange range = getRange(i, origin.getRow(), origin.getColumn());
+            // Une plage inversée (ex: A5:A1) n'a pas d'antécédent : l'évaluation la signale en erreur
+            if (range.getFirstRow() <= range.getLastRow() && range.getFirstColumn() <= range.getLastColumn()) {
+                rangePrecedents.add(range);
+            }
+        }
+    }
+
+    private static final class Collector implements ExpressionVisitor {
+        int[] references = new int[8];
+        int referenceSize = 0;
+        int[] ranges = new int[8];
+        int rangeSize = 0;
+        int functionCount = 0;
+        int powerCount = 0;
+
+        @Override
+        public void reference(int rowOffset, int columnOffset) {
+            if (referenceSize + 2 > references.length) {
+                references = Arrays.copyOf(references, references.length * 2);
+            }
+            references[referenceSize++] = rowOffset;
+            references[referenceSize++] = columnOffset;
+        }
+
+        @Override
+        public void range(int startRowOffset, int startColumnOffset, int endRowOffset, int endColumnOffset) {
+            if (rangeSize + 4 > ranges.length) {
+                ranges = Arrays.copyOf(ranges, ranges.length * 2);
+            }
+            ranges[rangeSize++] = startRowOffset;
+            ranges[rangeSize++] = startColumnOffset;
+            ranges[rangeSize++] = endRowOffset;
+            ranges[rangeSize++] = endColumnOffset;
+        }
+
+        @Override
+        public void function(String name) {
+            functionCount++;
+        }
+
+        @Override
+        public void power() {
+            powerCount++;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package excel.model;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index bidirectionnel des dépendances entre cellules.
+ * Chaque arête n'est enregistrée qu'une fois, et les antécédents d'une cellule
+ * sont remplacés en bloc lorsque son expression est reconstruite.
+ * Les plages (ex: SUM(A1:A100)) sont conservées à part dans un {@link RangeIndex}.
+ */
+public class DependencyGraph {
+    private final Map<Cell, Set<Cell>> precedents = new HashMap<>();
+    private final Map<Cell, Set<Cell>> dependents = new HashMap<>();
+    private final RangeIndex rangeIndex;
+    private int edgeCount = 0;
+
+    public DependencyGraph(int columnCount) {
+        this.rangeIndex = new RangeIndex(columnCount);
+    }
+
+    /**
+     * Remplace les antécédents de la cellule (cellules isolées et plages) par ceux donnés
+     */
+    public void setPrecedents(Cell cell, Set<Cell> newPrecedents, List<CellRange> newRanges) {
+        clearPrecedents(cell);
+        rangeIndex.setRanges(cell, newRanges);
+        if (newPrecedents.isEmpty()) {
+            return;
+        }
+        Set<Cell> copy = new HashSet<>(newPrecedents);
+        precedents.put(cell, copy);
+        for (Cell precedent : copy) {
+            dependents.computeIfAbsent(precedent, k -> new HashSet<>()).add(cell);
+        }
+        edgeCount += copy.size();
+    }
+
+    /**
+     * Supprime toutes les arêtes entrantes de la cellule
+     */
+    public void clearPrecedents(Cell cell) {
+        rangeIndex.clear(cell);
+        Set<Cell> old = precedents.remove(cell);
+        if (old == null) {
+            return;
+        }
+        for (Cell precedent : old) {
+            Set<Cell> set = dependents.get(precedent);
+            if (set != null) {
+                set.remove(cell);
+                if (set.isEmpty()) {
+                    dependents.remove(precedent);
+                }
+            }
+        }
+        edgeCount -= old.size();
+    }
+
+    /**
+     * Cellules dont la cellule donnée dépend directement (hors plages)
+     */
+    public Set<Cell> getPrecedents(Cell cell) {
+        Set<Cell> set = precedents.get(cell);
+        return set != null ? Collections.unmodifiableSet(set) : Collections.emptySet();
+    }
+
+    /**
+     * Plages dont la cellule donnée dépend
+     */
+    public List<CellRange> getRangePrecedents(Cell cell) {
+        return rangeIndex.getRanges(cell);
+    }
+
+    /**
+     * Cellules qui dépendent directement de la cellule donnée, par référence ou par plage
+     */
+    public Set<Cell> getDependents(Cell cell) {
+        Set<Cell> set = dependents.get(cell);
+        Set<Cell> result = set != null ? new LinkedHashSet<>(set) : new LinkedHashSet<>();
+        rangeIndex.forEachCovering(cell.getRow(), cell.getColumn(), result::add);
+        return result;
+    }
+
+    /**
+     * Répercute le changement de valeur d'une cellule sur les agrégats des plages qui la couvrent
+     */
+    public void updateRangeAggregates(int row, int column, byte oldType, double oldNumber, byte newType, double newNumber) {
+        rangeIndex.updateAggregates(row, column, oldType, oldNumber, newType, newNumber);
+    }
+
+    /**
+     * Agrégat incrémental d'une plage de la formule de la cellule, ou null si elle n'est pas enregistrée
+     */
+    RangeAggregate findRangeAggregate(Cell cell, int firstRow, int firstColumn, int lastRow, int lastColumn) {
+        return rangeIndex.findAggregate(cell, firstRow, firstColumn, lastRow, lastColumn);
+    }
+
+    /**
+     * Nombre total d'arêtes (antécédent -> dépendant)
+     */
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Nombre de plages enregistrées
+     */
+    public int getRangeCount() {
+        return rangeIndex.getRangeCount();
+    }
+
+    /**
+     * Nombre de cellules ayant au moins un antécédent (hors plages)
+     */
+    public int getDependentCellCount() {
+        return precedents.size();
+    }
+
+    /**
+     * Nombre de cellules référencées par au moins une autre
+     */
+    public int getPrecedentCellCount() {
+        return dependents.size();
+    }
+}
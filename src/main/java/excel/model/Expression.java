@@ -5,7 +5,14 @@ package excel.model;
  */
 public interface Expression {
     /**
-     * Évalue l'expression et retourne sa valeur
+     * Évalue l'expression pour la cellule qui la contient et retourne sa valeur.
+     * Les références étant relatives à cette cellule, un même arbre peut servir à plusieurs cellules.
      */
-    CellValue evaluate(SpreadsheetModel spreadsheet) throws CircularReferenceException;
-}
\ No newline at end of file
+    CellValue evaluate(SpreadsheetModel spreadsheet, Cell origin) throws CircularReferenceException;
+
+    /**
+     * Fait visiter à l'expression ses références, plages, fonctions et puissances
+     */
+    default void accept(ExpressionVisitor visitor) {
+    }
+}
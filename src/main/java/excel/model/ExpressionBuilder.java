@@ -1,429 +1,260 @@
 package excel.model;
 
-import javafx.beans.property.SimpleIntegerProperty;
+import excel.model.FormulaLexer.TokenType;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 
 /**
- * Construit des expressions à partir de chaînes de caractères
+ * Construit des expressions à partir de chaînes de caractères.
+ * Le builder est sans état : une même instance peut compiler depuis plusieurs threads.
  */
 public class ExpressionBuilder {
-    private static final Pattern CELL_REFERENCE_PATTERN = Pattern.compile("([A-Z]+)([0-9]+)");
-
-    private final SpreadsheetModel spreadsheet;
-
-    private SimpleIntegerProperty sumCountInBuilder = new SimpleIntegerProperty(0);
-
-    public int getSumCountInBuilder() {
-        return sumCountInBuilder.get();
-    }
-
-    public SimpleIntegerProperty sumCountInBuilderProperty() {
-        return sumCountInBuilder;
-    }
-
-    public void setSumCountInBuilder(int sumCountInBuilder) {
-        this.sumCountInBuilder.set(sumCountInBuilder);
-    }
-
-    int counterSum = 0;
-
-    // Constructeur avec référence au modèle
-    public ExpressionBuilder(SpreadsheetModel spreadsheet) {
-        this.spreadsheet = spreadsheet;
-    }
-
-    // Tokens pour l'analyse lexicale
-    private enum TokenType {
-        NUMBER, BOOLEAN, TEXT, CELL_REFERENCE, OPERATOR, LOGICAL_OPERATOR, COMPARISON_OPERATOR, FUNCTION, PARENTHESIS
-    }
-
-    private static class Token {
-        TokenType type;
-        String value;
-
-        Token(TokenType type, String value) {
-            this.type = type;
-            this.value = value;
-        }
-    }
+    // Gabarits déjà analysés, partagés entre toutes les feuilles
+    private static final FormulaCache TEMPLATE_CACHE = new FormulaCache(4096);
 
     /**
-     * Construit une expression à partir d'une chaîne et de la cellule source
+     * Compile une formule (sans le signe =) pour la cellule source de coordonnées données.
+     * Le résultat est immuable ; cette méthode peut être appelée depuis plusieurs threads.
      */
-    public Expression build(String content, Cell sourceCell) {
-        this.sumCountInBuilder.addListener((observable, oldValue, newValue) -> {
-            if (newValue.intValue() != oldValue.intValue()) {
-                sourceCell.setCounterSumAndPowInCell(getSumCountInBuilder());
-            }
-        });
+    public CompiledFormula compile(String content, int originRow, int originColumn) {
         if (content == null || content.isEmpty()) {
-            return new LiteralExpression(CellValue.ofText(""));
+            return CompiledFormula.of(new LiteralExpression(CellValue.EMPTY));
         }
 
         try {
             // Analyse lexicale
-            List<Token> tokens = tokenize(content);
-            sourceCell.setCounterSumAndPowInCell(counterSum);
-            counterSum = 0;
-            // Analyse syntaxique et construction de l'expression
+            FormulaLexer tokens = FormulaLexer.tokenize(content);
 
-            return parseExpression(tokens, sourceCell);
-        } catch (CircularReferenceException e) {
-            counterSum = 0;
-            return new LiteralExpression(CellValue.ofError(CellError.CIRCULAR_REF));
+            // Une formule déjà rencontrée (à un décalage près) réutilise la compilation en cache
+            String template = toTemplate(tokens, originRow, originColumn);
+            CompiledFormula cached = TEMPLATE_CACHE.get(template);
+            if (cached != null) {
+                return cached;
+            }
 
-        } catch ( Exception e){
-            counterSum = 0;
-            return new LiteralExpression(CellValue.ofError(CellError.SYNTAX_ERROR));
+            // Analyse syntaxique et construction de l'expression
+            CompiledFormula formula = CompiledFormula.of(new Parser(tokens, originRow, originColumn).parse());
+            TEMPLATE_CACHE.put(template, formula);
+            return formula;
+        } catch (Exception e) {
+            return CompiledFormula.of(new LiteralExpression(CellValue.ofError(CellError.SYNTAX_ERROR)));
         }
     }
 
     /**
-     * Version surchargée pour compatibilité
+     * Compile un lot de formules en parallèle sur le ForkJoinPool commun
+     * (chargement de fichier, collage en masse)
      */
-    public Expression build(String content) {
-        return build(content, null);
+    public CompiledFormula[] compileAll(String[] contents, int[] originRows, int[] originColumns) {
+        CompiledFormula[] formulas = new CompiledFormula[contents.length];
+        IntStream.range(0, contents.length).parallel()
+                .forEach(i -> formulas[i] = compile(contents[i], originRows[i], originColumns[i]));
+        return formulas;
     }
 
-    private List<Token> tokenize(String expression) {
-        List<Token> tokens = new ArrayList<>();
-        StringBuilder currentToken = new StringBuilder();
-        TokenType currentType = null;
-
-        for (int i = 0; i < expression.length(); i++) {
-            char c = expression.charAt(i);
-
-            // Espace
-            if (Character.isWhitespace(c)) {
-                if (currentType != null) {
-                    tokens.add(new Token(currentType, currentToken.toString()));
-                    currentToken.setLength(0);
-                    currentType = null;
-                }
-                continue;
-            }
-
-            //PARENTHESIS
-            if(c == '(' || c == ')' || c == ':'){
-                if (currentType != null) {
-                    tokens.add(new Token(currentType, currentToken.toString()));
-                    currentToken.setLength(0);
-                }
-                tokens.add(new Token(TokenType.PARENTHESIS, String.valueOf(c)));
-                currentToken.setLength(0);
-                currentType = null;
-                continue;
-            }
-
-            // Opérateur
-            if (c == '+' || c == '-' || c == '*' || c == '/' || c == '^') {
-
-                if (c == '^') {
-                    ++counterSum;
-                }
-                if (currentType != null) {
-                    tokens.add(new Token(currentType, currentToken.toString()));
-                    currentToken.setLength(0);
-                }
-                tokens.add(new Token(TokenType.OPERATOR, String.valueOf(c)));
-                currentType = null;
-                continue;
-            }
-
-            // Opérateur de comparaison
-            if (c == '>' || c == '<' || c == '=' || c == '!') {
-                if (currentType != null) {
-                    tokens.add(new Token(currentType, currentToken.toString()));
-                    currentToken.setLength(0);
-                }
-
-                if (i + 1 < expression.length() && expression.charAt(i + 1) == '=') {
-                    tokens.add(new Token(TokenType.COMPARISON_OPERATOR, c + "="));
-                    i++;
-                } else {
-                    tokens.add(new Token(TokenType.COMPARISON_OPERATOR, String.valueOf(c)));
-                }
-
-                currentType = null;
-                continue;
-            }
+    public static FormulaCache getTemplateCache() {
+        return TEMPLATE_CACHE;
+    }
 
-            // Lettre (peut être une référence de cellule ou un opérateur logique)
-            if (Character.isLetter(c)) {
-                if (currentType == null) {
-                    currentType = TokenType.TEXT;
-                    currentToken.append(c);
-                } else if (currentType == TokenType.TEXT) {
-                    currentToken.append(c);
-                } else {
-                    tokens.add(new Token(currentType, currentToken.toString()));
-                    currentToken.setLength(0);
-                    currentType = TokenType.TEXT;
-                    currentToken.append(c);
-                }
-                continue;
+    /**
+     * Texte de la formule où chaque référence est remplacée par son décalage (R[dl]C[dc])
+     * par rapport à la cellule source : deux recopies d'une même formule ont le même gabarit
+     */
+    private String toTemplate(FormulaLexer tokens, int originRow, int originColumn) {
+        StringBuilder template = new StringBuilder(32);
+        for (int i = 0; i < tokens.size(); i++) {
+            if (i > 0) {
+                template.append(' ');
             }
-
-            // Chiffre
-            if (Character.isDigit(c) || c == ',' || c == '.') {
-                if (currentType == null) {
-                    currentType = TokenType.NUMBER;
-                    currentToken.append(c);
-                } else if (currentType == TokenType.NUMBER || currentType == TokenType.TEXT) {
-                    currentToken.append(c);
-                } else {
-                    tokens.add(new Token(currentType, currentToken.toString()));
-                    currentToken.setLength(0);
-                    currentType = TokenType.NUMBER;
-                    currentToken.append(c);
-                }
-                continue;
+            if (tokens.type(i) == TokenType.CELL_REFERENCE) {
+                template.append("R[").append(tokens.row(i) - originRow)
+                        .append("]C[").append(tokens.column(i) - originColumn).append(']');
+            } else {
+                tokens.appendText(i, template);
             }
-
-            // Caractère non reconnu
-            throw new IllegalArgumentException("Caractère non reconnu: " + c);
         }
+        return template.toString();
+    }
 
-        // Ajouter le dernier token
-        if (currentType != null) {
-            tokens.add(new Token(currentType, currentToken.toString()));
+    /**
+     * Analyse syntaxique par descente récursive ; une instance par formule compilée
+     */
+    private static final class Parser {
+        private final FormulaLexer tokens;
+        private final int originRow;
+        private final int originColumn;
+        private int position = 0;
+
+        Parser(FormulaLexer tokens, int originRow, int originColumn) {
+            this.tokens = tokens;
+            this.originRow = originRow;
+            this.originColumn = originColumn;
         }
 
-        // Post-traitement des tokens
-        List<Token> processedTokens = new ArrayList<>();
-
-        for (Token token : tokens) {
-            // Identifier les références de cellule et les opérateurs logiques
-            if (token.type == TokenType.TEXT) {
-                Matcher cellMatcher = CELL_REFERENCE_PATTERN.matcher(token.value);
-                if (cellMatcher.matches()) {
-                    processedTokens.add(new Token(TokenType.CELL_REFERENCE, token.value));
-                } else if (token.value.equalsIgnoreCase("and") ||
-                        token.value.equalsIgnoreCase("or") ||
-                        token.value.equalsIgnoreCase("not")) {
-                    processedTokens.add(new Token(TokenType.LOGICAL_OPERATOR, token.value.toLowerCase()));
-                } else if (token.value.equalsIgnoreCase("true") ||
-                        token.value.equalsIgnoreCase("false")) {
-                    processedTokens.add(new Token(TokenType.BOOLEAN, token.value.toLowerCase()));
-                }else if (token.value.equalsIgnoreCase("sum" ) || token.value.equalsIgnoreCase("avg")
-                        || token.value.equalsIgnoreCase("min") || token.value.equalsIgnoreCase("max")) {
-                    processedTokens.add(new Token(TokenType.FUNCTION, token.value.toLowerCase()));
-                    ++counterSum;
-                }
-                else {
-                    processedTokens.add(new Token(TokenType.TEXT, token.value));
-                }
-            } else {
-                processedTokens.add(token);
+        Expression parse() {
+            if (tokens.size() == 0) {
+                throw new IllegalArgumentException("Expression vide");
             }
+            return parseLogicalOr();
         }
 
-        return processedTokens;
-    }
-
-    private Expression parseExpression(List<Token> tokens, Cell sourceCell) {
-        if (tokens.isEmpty()) {
-            throw new IllegalArgumentException("Expression vide");
+        private boolean at(TokenType type) {
+            return position < tokens.size() && tokens.type(position) == type;
         }
-        return parseLogicalOr(tokens, 0, sourceCell).expression;
-    }
 
-    private static class ParseResult {
-        Expression expression;
-        int nextTokenIndex;
-
-        ParseResult(Expression expression, int nextTokenIndex) {
-            this.expression = expression;
-            this.nextTokenIndex = nextTokenIndex;
+        private boolean atLogical(char first, int length) {
+            return at(TokenType.LOGICAL_OPERATOR)
+                    && tokens.length(position) == length
+                    && Character.toLowerCase(tokens.firstChar(position)) == first;
         }
-    }
-
-    // Niveau 6: OR
-    private ParseResult parseLogicalOr(List<Token> tokens, int startIndex, Cell sourceCell) {
-        ParseResult left = parseLogicalAnd(tokens, startIndex, sourceCell);
 
-        int i = left.nextTokenIndex;
-        while (i < tokens.size() &&
-                tokens.get(i).type == TokenType.LOGICAL_OPERATOR &&
-                tokens.get(i).value.equals("or")) {
-
-            ParseResult right = parseLogicalAnd(tokens, i + 1, sourceCell);
-            left = new ParseResult(
-                    new LogicalExpression(left.expression, right.expression, LogicalExpression.Operator.OR),
-                    right.nextTokenIndex
-            );
-            i = left.nextTokenIndex;
+        // Niveau 6: OR
+        private Expression parseLogicalOr() {
+            Expression left = parseLogicalAnd();
+            while (atLogical('o', 2)) {
+                position++;
+                left = new LogicalExpression(left, parseLogicalAnd(), LogicalExpression.Operator.OR);
+            }
+            return left;
         }
 
-        return left;
-    }
-
-    // Niveau 5: AND
-    private ParseResult parseLogicalAnd(List<Token> tokens, int startIndex, Cell sourceCell) {
-        ParseResult left = parseLogicalNot(tokens, startIndex, sourceCell);
-
-        int i = left.nextTokenIndex;
-        while (i < tokens.size() &&
-                tokens.get(i).type == TokenType.LOGICAL_OPERATOR &&
-                tokens.get(i).value.equals("and")) {
-
-            ParseResult right = parseLogicalNot(tokens, i + 1, sourceCell);
-            left = new ParseResult(
-                    new LogicalExpression(left.expression, right.expression, LogicalExpression.Operator.AND),
-                    right.nextTokenIndex
-            );
-            i = left.nextTokenIndex;
+        // Niveau 5: AND
+        private Expression parseLogicalAnd() {
+            Expression left = parseLogicalNot();
+            while (atLogical('a', 3)) {
+                position++;
+                left = new LogicalExpression(left, parseLogicalNot(), LogicalExpression.Operator.AND);
+            }
+            return left;
         }
 
-        return left;
-    }
-
-    // Niveau 4: NOT
-    private ParseResult parseLogicalNot(List<Token> tokens, int startIndex, Cell sourceCell) {
-        if (startIndex < tokens.size() &&
-                tokens.get(startIndex).type == TokenType.LOGICAL_OPERATOR &&
-                tokens.get(startIndex).value.equals("not")) {
-
-            ParseResult operand = parseComparison(tokens, startIndex + 1, sourceCell);
-            return new ParseResult(
-                    new LogicalExpression(operand.expression, LogicalExpression.Operator.NOT),
-                    operand.nextTokenIndex
-            );
+        // Niveau 4: NOT
+        private Expression parseLogicalNot() {
+            if (atLogical('n', 3)) {
+                position++;
+                return new LogicalExpression(parseComparison(), LogicalExpression.Operator.NOT);
+            }
+            return parseComparison();
         }
 
-        return parseComparison(tokens, startIndex, sourceCell);
-    }
-
-    // Niveau 3: Comparaisons
-    private ParseResult parseComparison(List<Token> tokens, int startIndex, Cell sourceCell) {
-        ParseResult left = parseAdditive(tokens, startIndex, sourceCell);
+        // Niveau 3: Comparaisons
+        private Expression parseComparison() {
+            Expression left = parseAdditive();
+            if (!at(TokenType.COMPARISON_OPERATOR)) {
+                return left;
+            }
 
-        int i = left.nextTokenIndex;
-        if (i < tokens.size() && tokens.get(i).type == TokenType.COMPARISON_OPERATOR) {
+            boolean orEqual = tokens.length(position) == 2;
             ComparisonExpression.Operator operator;
-            switch (tokens.get(i).value) {
-                case ">": operator = ComparisonExpression.Operator.GREATER_THAN; break;
-                case ">=": operator = ComparisonExpression.Operator.GREATER_THAN_OR_EQUAL; break;
-                case "<": operator = ComparisonExpression.Operator.LESS_THAN; break;
-                case "<=": operator = ComparisonExpression.Operator.LESS_THAN_OR_EQUAL; break;
-                case "=": operator = ComparisonExpression.Operator.EQUAL; break;
-                case "!=": operator = ComparisonExpression.Operator.NOT_EQUAL; break;
-                default: throw new IllegalArgumentException("Opérateur de comparaison non reconnu: " + tokens.get(i).value);
+            switch (tokens.firstChar(position)) {
+                case '>':
+                    operator = orEqual ? ComparisonExpression.Operator.GREATER_THAN_OR_EQUAL
+                            : ComparisonExpression.Operator.GREATER_THAN;
+                    break;
+                case '<':
+                    operator = orEqual ? ComparisonExpression.Operator.LESS_THAN_OR_EQUAL
+                            : ComparisonExpression.Operator.LESS_THAN;
+                    break;
+                case '=':
+                    if (orEqual) {
+                        throw new IllegalArgumentException("Opérateur de comparaison non reconnu: ==");
+                    }
+                    operator = ComparisonExpression.Operator.EQUAL;
+                    break;
+                case '!':
+                    if (!orEqual) {
+                        throw new IllegalArgumentException("Opérateur de comparaison non reconnu: !");
+                    }
+                    operator = ComparisonExpression.Operator.NOT_EQUAL;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Opérateur de comparaison non reconnu: " + tokens.text(position));
             }
-
-            ParseResult right = parseAdditive(tokens, i + 1, sourceCell);
-            return new ParseResult(
-                    new ComparisonExpression(left.expression, right.expression, operator),
-                    right.nextTokenIndex
-            );
+            position++;
+            return new ComparisonExpression(left, parseAdditive(), operator);
         }
 
-        return left;
-    }
-
-    // Niveau 2: Addition et soustraction
-    private ParseResult parseAdditive(List<Token> tokens, int startIndex, Cell sourceCell) {
-        ParseResult left = parseMultiplicative(tokens, startIndex, sourceCell);
-
-        int i = left.nextTokenIndex;
-        while (i < tokens.size() &&
-                tokens.get(i).type == TokenType.OPERATOR &&
-                (tokens.get(i).value.equals("+") || tokens.get(i).value.equals("-"))) {
-
-            BinaryArithmeticExpression.Operator operator = tokens.get(i).value.equals("+") ?
-                    BinaryArithmeticExpression.Operator.ADD :
-                    BinaryArithmeticExpression.Operator.SUBTRACT;
-
-            ParseResult right = parseMultiplicative(tokens, i + 1, sourceCell);
-            left = new ParseResult(
-                    new BinaryArithmeticExpression(left.expression, right.expression, operator),
-                    right.nextTokenIndex
-            );
-            i = left.nextTokenIndex;
+        // Niveau 2: Addition et soustraction
+        private Expression parseAdditive() {
+            Expression left = parseMultiplicative();
+            while (at(TokenType.OPERATOR)
+                    && (tokens.firstChar(position) == '+' || tokens.firstChar(position) == '-')) {
+                BinaryArithmeticExpression.Operator operator = tokens.firstChar(position) == '+' ?
+                        BinaryArithmeticExpression.Operator.ADD :
+                        BinaryArithmeticExpression.Operator.SUBTRACT;
+                position++;
+                left = new BinaryArithmeticExpression(left, parseMultiplicative(), operator);
+            }
+            return left;
         }
 
-        return left;
-    }
-
-    // Niveau 1: Multiplication et division
-    private ParseResult parseMultiplicative(List<Token> tokens, int startIndex, Cell sourceCell) {
-        ParseResult left = parsePrimary(tokens, startIndex, sourceCell);
-
-        int i = left.nextTokenIndex;
-        while (i < tokens.size() &&
-                tokens.get(i).type == TokenType.OPERATOR &&
-                (tokens.get(i).value.equals("^") || tokens.get(i).value.equals("*") || tokens.get(i).value.equals("/"))) {
-
-//            BinaryArithmeticExpression.Operator operator = tokens.get(i).value.equals("^") ?
-//                    BinaryArithmeticExpression.Operator.POWER : tokens.get(i).value.equals("*") ?
-//                    BinaryArithmeticExpression.Operator.MULTIPLY : BinaryArithmeticExpression.Operator.DIVIDE;
-
-            BinaryArithmeticExpression.Operator operator;
+        // Niveau 1: Puissance, multiplication et division
+        private Expression parseMultiplicative() {
+            Expression left = parsePrimary();
+            while (at(TokenType.OPERATOR)) {
+                BinaryArithmeticExpression.Operator operator;
+                switch (tokens.firstChar(position)) {
+                    case '^': operator = BinaryArithmeticExpression.Operator.POWER; break;
+                    case '*': operator = BinaryArithmeticExpression.Operator.MULTIPLY; break;
+                    case '/': operator = BinaryArithmeticExpression.Operator.DIVIDE; break;
+                    default: return left;
+                }
+                position++;
+                left = new BinaryArithmeticExpression(left, parsePrimary(), operator);
+            }
+            return left;
+        }
 
-            if (tokens.get(i).value.equals("^")) {
-                operator = BinaryArithmeticExpression.Operator.POWER;
-            } else if (tokens.get(i).value.equals("*")) {
-                operator = BinaryArithmeticExpression.Operator.MULTIPLY;
-            } else {
-                operator = BinaryArithmeticExpression.Operator.DIVIDE;
+        // Niveau 0: Littéraux, références et fonctions
+        private Expression parsePrimary() {
+            if (position >= tokens.size()) {
+                throw new IllegalArgumentException("Expression incomplète");
             }
 
-            ParseResult right = parsePrimary(tokens, i + 1, sourceCell);
-            left = new ParseResult(
-                    new BinaryArithmeticExpression(left.expression, right.expression, operator),
-                    right.nextTokenIndex
-            );
-            i = left.nextTokenIndex;
+            int index = position++;
+            switch (tokens.type(index)) {
+                case FUNCTION:
+                    // fonction(début:fin)
+                    expect('(');
+                    int start = expectReference();
+                    expect(':');
+                    int end = expectReference();
+                    expect(')');
+                    return new FunctionExpression(tokens.functionName(index),
+                            tokens.row(start) - originRow, tokens.column(start) - originColumn,
+                            tokens.row(end) - originRow, tokens.column(end) - originColumn);
+
+                case NUMBER:
+                    return new LiteralExpression(CellValue.ofNumber(Double.parseDouble(tokens.text(index).replace(',', '.'))));
+
+                case BOOLEAN:
+                    // "true" et "false" se distinguent par leur longueur
+                    return new LiteralExpression(CellValue.ofBoolean(tokens.length(index) == 4));
+
+                case TEXT:
+                    return new LiteralExpression(CellValue.ofText(tokens.text(index)));
+
+                case CELL_REFERENCE:
+                    // Référence relative à la cellule source
+                    return new ReferenceExpression(tokens.row(index) - originRow, tokens.column(index) - originColumn);
+
+                default:
+                    throw new IllegalArgumentException("Token inattendu: " + tokens.text(index));
+            }
         }
-        return left;
-    }
 
-    // Niveau 0: Littéraux et références
-    private ParseResult parsePrimary(List<Token> tokens, int startIndex, Cell sourceCell) {
-        if (startIndex >= tokens.size()) {
-            throw new IllegalArgumentException("Expression incomplète");
+        private void expect(char parenthesis) {
+            if (!at(TokenType.PARENTHESIS) || tokens.firstChar(position) != parenthesis) {
+                throw new IllegalArgumentException("'" + parenthesis + "' attendu");
+            }
+            position++;
         }
 
-        Token token = tokens.get(startIndex);
-
-        switch (token.type) {
-            case FUNCTION:
-                return new ParseResult(
-                        new FunctionExpression(tokens.get(startIndex).value, tokens.get(startIndex+2).value,tokens.get(startIndex+4).value,sourceCell),startIndex + 6);
-
-            case NUMBER:
-                double number = Double.parseDouble(token.value.replace(',', '.'));
-                return new ParseResult(
-                        new LiteralExpression(CellValue.ofNumber(number)),
-                        startIndex + 1
-                );
-
-            case BOOLEAN:
-                boolean bool = Boolean.parseBoolean(token.value);
-                return new ParseResult(
-                        new LiteralExpression(CellValue.ofBoolean(bool)),
-                        startIndex + 1
-                );
-
-            case TEXT:
-                return new ParseResult(
-                        new LiteralExpression(CellValue.ofText(token.value)),
-                        startIndex + 1
-                );
-
-            case CELL_REFERENCE:
-                // Créer une expression de référence avec le spreadsheet et la cellule source
-                return new ParseResult(
-                        new ReferenceExpression(token.value, spreadsheet, sourceCell),
-                        startIndex + 1
-                );
-
-            default:
-                throw new IllegalArgumentException("Token inattendu: " + token.value);
+        private int expectReference() {
+            if (!at(TokenType.CELL_REFERENCE)) {
+                throw new IllegalArgumentException("Référence de cellule attendue");
+            }
+            return position++;
         }
     }
-}
\ No newline at end of file
+}
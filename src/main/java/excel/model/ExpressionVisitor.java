@@ -0,0 +1,19 @@
+package excel.model;
+
+/**
+ * Reçoit les références, plages, fonctions et puissances rencontrées
+ * lors du parcours d'une expression (décalages relatifs à la cellule source)
+ */
+public interface ExpressionVisitor {
+    default void reference(int rowOffset, int columnOffset) {
+    }
+
+    default void range(int startRowOffset, int startColumnOffset, int endRowOffset, int endColumnOffset) {
+    }
+
+    default void function(String name) {
+    }
+
+    default void power() {
+    }
+}
@@ -0,0 +1,63 @@
+package excel.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache LRU borné des formules déjà compilées, indexées par leur texte en références relatives.
+ * Les recopies d'une même formule le long d'une colonne (=A1+1, =A2+1, ...) partagent un seul arbre.
+ * Les accès sont synchronisés : le cache peut être utilisé depuis plusieurs threads.
+ */
+public class FormulaCache {
+    private final int capacity;
+    private final Map<String, CompiledFormula> entries;
+    private long hitCount = 0;
+    private long missCount = 0;
+
+    public FormulaCache(int capacity) {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompiledFormula> eldest) {
+                return size() > FormulaCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Retourne la formule compilée associée au gabarit, ou null s'il n'est pas (ou plus) en cache
+     */
+    public synchronized CompiledFormula get(String template) {
+        CompiledFormula formula = entries.get(template);
+        if (formula != null) {
+            hitCount++;
+        } else {
+            missCount++;
+        }
+        return formula;
+    }
+
+    public synchronized void put(String template, CompiledFormula formula) {
+        entries.put(template, formula);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+}
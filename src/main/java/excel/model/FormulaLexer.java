@@ -0,0 +1,255 @@
+package excel.model;
+
+import java.util.Arrays;
+
+/**
+ * Analyse lexicale d'une formule en une seule passe sur les caractères.
+ * Un token n'est pas une sous-chaîne : il est décrit par son type et ses bornes dans le texte source.
+ * Les références de cellule (ex: B12) sont décodées au passage, sans expression régulière.
+ */
+final class FormulaLexer {
+    enum TokenType {
+        NUMBER, BOOLEAN, TEXT, CELL_REFERENCE, OPERATOR, LOGICAL_OPERATOR, COMPARISON_OPERATOR, FUNCTION, PARENTHESIS
+    }
+
+    private final String source;
+    private TokenType[] types = new TokenType[16];
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    // Ligne et colonne (indices 0) des tokens CELL_REFERENCE
+    private int[] rows = new int[16];
+    private int[] columns = new int[16];
+    private int size = 0;
+
+    private FormulaLexer(String source) {
+        this.source = source;
+    }
+
+    /**
+     * Découpe la formule en tokens
+     *
+     * @throws IllegalArgumentException si un caractère n'est pas reconnu ou si le numéro de ligne
+     *                                  d'une référence dépasse un int
+     */
+    static FormulaLexer tokenize(String source) {
+        FormulaLexer lexer = new FormulaLexer(source);
+        lexer.scan();
+        return lexer;
+    }
+
+    int size() {
+        return size;
+    }
+
+    TokenType type(int index) {
+        return types[index];
+    }
+
+    /**
+     * Premier caractère du token (opérateurs et parenthèses n'en ont qu'un)
+     */
+    char firstChar(int index) {
+        return source.charAt(starts[index]);
+    }
+
+    int length(int index) {
+        return ends[index] - starts[index];
+    }
+
+    String text(int index) {
+        return source.substring(starts[index], ends[index]);
+    }
+
+    int row(int index) {
+        return rows[index];
+    }
+
+    int column(int index) {
+        return columns[index];
+    }
+
+    /**
+     * Nom canonique (en minuscules) d'un token FUNCTION
+     */
+    String functionName(int index) {
+        String name = FunctionRegistry.findName(source, starts[index], ends[index]);
+        if (name == null) {
+            throw new IllegalArgumentException("Fonction non reconnue: " + text(index));
+        }
+        return name;
+    }
+
+    /**
+     * Ajoute le texte brut du token au builder, sans sous-chaîne intermédiaire
+     */
+    void appendText(int index, StringBuilder builder) {
+        builder.append(source, starts[index], ends[index]);
+    }
+
+    private void scan() {
+        int length = source.length();
+        int i = 0;
+        while (i < length) {
+            char c = source.charAt(i);
+
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+
+            switch (c) {
+                case '(':
+                case ')':
+                case ':':
+                    add(TokenType.PARENTHESIS, i, i + 1);
+                    i++;
+                    continue;
+                case '+':
+                case '-':
+                case '*':
+                case '/':
+                case '^':
+                    add(TokenType.OPERATOR, i, i + 1);
+                    i++;
+                    continue;
+                case '>':
+                case '<':
+                case '=':
+                case '!':
+                    int end = i + 1 < length && source.charAt(i + 1) == '=' ? i + 2 : i + 1;
+                    add(TokenType.COMPARISON_OPERATOR, i, end);
+                    i = end;
+                    continue;
+                default:
+                    break;
+            }
+
+            if (isLetter(c)) {
+                i = scanWord(i, length);
+            } else if (isNumberChar(c)) {
+                i = scanNumber(i, length);
+            } else {
+                throw new IllegalArgumentException("Caractère non reconnu: " + c);
+            }
+        }
+    }
+
+    // Un nombre s'arrête à la première lettre, qui commence un nouveau mot
+    private int scanNumber(int start, int length) {
+        int i = start + 1;
+        while (i < length && isNumberChar(source.charAt(i))) {
+            i++;
+        }
+        add(TokenType.NUMBER, start, i);
+        return i;
+    }
+
+    // Un mot commence par une lettre et se poursuit par des lettres, chiffres, virgules ou points.
+    // Il est classé au fil de la lecture : référence (lettres majuscules puis chiffres, quelle que soit leur
+    // longueur), mot-clé ou texte. Comme avec l'ancienne conversion, la colonne est calculée en int
+    // et un numéro de ligne qui dépasse un int rend la formule invalide.
+    private int scanWord(int start, int length) {
+        int column = 0;
+        long row = 0;
+        int digits = 0;
+        boolean reference = true;
+
+        int i = start;
+        while (i < length) {
+            char c = source.charAt(i);
+            if (isLetter(c)) {
+                if (c >= 'A' && c <= 'Z' && digits == 0) {
+                    column = column * 26 + (c - 'A' + 1);
+                } else {
+                    reference = false;
+                }
+            } else if (isNumberChar(c)) {
+                if (c >= '0' && c <= '9') {
+                    // Borné au-delà d'un int : la valeur exacte n'importe plus
+                    row = Math.min(row * 10 + (c - '0'), Integer.MAX_VALUE + 1L);
+                    digits++;
+                } else {
+                    reference = false;
+                }
+            } else {
+                break;
+            }
+            i++;
+        }
+
+        if (reference && digits > 0) {
+            if (row > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Numéro de ligne trop grand: " + source.substring(start, i));
+            }
+            add(TokenType.CELL_REFERENCE, start, i);
+            rows[size - 1] = (int) row - 1;
+            columns[size - 1] = column - 1;
+        } else if (digits == 0) {
+            add(classifyKeyword(start, i), start, i);
+        } else {
+            add(TokenType.TEXT, start, i);
+        }
+        return i;
+    }
+
+    private TokenType classifyKeyword(int start, int end) {
+        switch (end - start) {
+            case 2:
+                if (matches(start, end, "or")) {
+                    return TokenType.LOGICAL_OPERATOR;
+                }
+                break;
+            case 3:
+                if (matches(start, end, "and") || matches(start, end, "not")) {
+                    return TokenType.LOGICAL_OPERATOR;
+                }
+                break;
+            case 4:
+                if (matches(start, end, "true")) {
+                    return TokenType.BOOLEAN;
+                }
+                break;
+            case 5:
+                if (matches(start, end, "false")) {
+                    return TokenType.BOOLEAN;
+                }
+                break;
+            default:
+                break;
+        }
+        return FunctionRegistry.findName(source, start, end) != null ? TokenType.FUNCTION : TokenType.TEXT;
+    }
+
+    private boolean matches(int start, int end, String keyword) {
+        return end - start == keyword.length() && source.regionMatches(true, start, keyword, 0, keyword.length());
+    }
+
+    private void add(TokenType type, int start, int end) {
+        if (size == types.length) {
+            int capacity = size * 2;
+            types = Arrays.copyOf(types, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            rows = Arrays.copyOf(rows, capacity);
+            columns = Arrays.copyOf(columns, capacity);
+        }
+        types[size] = type;
+        starts[size] = start;
+        ends[size] = end;
+        size++;
+    }
+
+    private static boolean isLetter(char c) {
+        if (c < 128) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+        }
+        return Character.isLetter(c);
+    }
+
+    private static boolean isNumberChar(char c) {
+        if (c < 128) {
+            return (c >= '0' && c <= '9') || c == ',' || c == '.';
+        }
+        return Character.isDigit(c);
+    }
+}
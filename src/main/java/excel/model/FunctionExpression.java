@@ -1,85 +1,128 @@
 package excel.model;
 
-import excel.tools.ExcelConverter;
-
-import java.util.ArrayList;
-import java.util.List;
-
+/**
+ * Fonction appliquée à une plage de cellules (ex: SUM(A1:A10)).
+ * La plage est parcourue en une passe, les valeurs alimentant un {@link RangeStatistics}
+ * sans liste intermédiaire ; la fonction est résolue dans le {@link FunctionRegistry}.
+ * Le parcours cellule par cellule est évité : SUM/AVG/COUNT lisent l'agrégat incrémental de la plage
+ * (voir {@link RangeAggregate}), les autres fonctions fusionnent les résumés par blocs du {@link CellStore}.
+ */
 public class FunctionExpression implements Expression{
-    private  String rangeStart;
-    private  String rangeEnd;
-    private Cell cellSource;
-    private String functionName;
-
-    public FunctionExpression(String functionName, String rangeStart, String rangeEnd, Cell source) {
-        this.rangeStart = rangeStart;
-        this.rangeEnd = rangeEnd;
-        this.cellSource = source;
+    // Bornes de la plage, relatives à la cellule qui contient la formule
+    private final int startRowOffset;
+    private final int startColumnOffset;
+    private final int endRowOffset;
+    private final int endColumnOffset;
+    private final String functionName;
+    private final FunctionRegistry.RangeFunction function;
+    private final FunctionRegistry.Aggregation aggregation;
+
+    public FunctionExpression(String functionName, int startRowOffset, int startColumnOffset,
+                              int endRowOffset, int endColumnOffset) {
+        this.startRowOffset = startRowOffset;
+        this.startColumnOffset = startColumnOffset;
+        this.endRowOffset = endRowOffset;
+        this.endColumnOffset = endColumnOffset;
         this.functionName = functionName;
+        this.function = FunctionRegistry.get(functionName);
+        if (function == null) {
+            throw new IllegalArgumentException("Fonction non reconnue: " + functionName);
+        }
+        this.aggregation = FunctionRegistry.getAggregation(functionName);
     }
 
     @Override
-    public CellValue evaluate(SpreadsheetModel spreadsheet) throws CircularReferenceException {
-        int[] startCoords = ExcelConverter.excelToRowCol(rangeStart);
-        int[] endCoords = ExcelConverter.excelToRowCol(rangeEnd);
+    public CellValue evaluate(SpreadsheetModel spreadsheet, Cell origin) throws CircularReferenceException {
+        int startRow = origin.getRow() + startRowOffset;
+        int startColumn = origin.getColumn() + startColumnOffset;
+        int endRow = origin.getRow() + endRowOffset;
+        int endColumn = origin.getColumn() + endColumnOffset;
 
         // Check if the range is valid
-        if (startCoords[0] > endCoords[0] || startCoords[1] > endCoords[1]) {
+        if (startRow > endRow || startColumn > endColumn) {
             return CellValue.ofError(CellError.SYNTAX_ERROR);
         }
 
-        List<Double> values = new ArrayList<>();
+        // La cellule source dans sa propre plage est une référence circulaire : détectée par le parcours
+        boolean containsOrigin = origin.getRow() >= startRow && origin.getRow() <= endRow
+                && origin.getColumn() >= startColumn && origin.getColumn() <= endColumn;
+        if (!containsOrigin) {
+            CellStore store = spreadsheet.getCellStore();
+            if (aggregation == FunctionRegistry.Aggregation.RUNNING_SUM) {
+                RangeAggregate aggregate = spreadsheet.getDependencyGraph()
+                        .findRangeAggregate(origin, startRow, startColumn, endRow, endColumn);
+                if (aggregate != null) {
+                    CellValue result = aggregate.evaluate(store, function);
+                    if (result != null) {
+                        return result;
+                    }
+                }
+            }
 
-        for (int row = startCoords[0]; row <= endCoords[0]; row++) {
-            for (int col = startCoords[1]; col <= endCoords[1]; col++) {
-                Cell cell = spreadsheet.getCell(row, col);
-                if (cell == null) {
+            // Résumés par blocs partagés par toutes les plages de la colonne
+            RangeStatistics statistics = new RangeStatistics();
+            long errors = 0;
+            for (int col = startColumn; col <= endColumn; col++) {
+                errors += store.summarize(startRow, endRow, col, statistics);
+            }
+            if (errors == 0) {
+                long size = (long) (endRow - startRow + 1) * (endColumn - startColumn + 1);
+                // Une cellule absente ou non numérique rend la plage invalide
+                if (statistics.getCount() != size) {
                     return CellValue.ofError(CellError.VALUE_ERROR);
                 }
-                spreadsheet.addDependency(cellSource, cell);
+                return function.apply(statistics);
+            }
+        }
 
-                if (cell.getAddress().equals(cellSource.getAddress())) {
-                    throw new CircularReferenceException("Circular reference detected: " + cell);
+        // Plage contenant une erreur (ou la cellule source) : parcours cellule par cellule,
+        // qui retourne la première erreur rencontrée
+        RangeStatistics statistics = new RangeStatistics();
+        CellValue error = scan(spreadsheet.getCellStore(), origin, startRow, startColumn, endRow, endColumn, statistics);
+        if (error != null) {
+            return error;
+        }
+        if (statistics.getCount() == 0) {
+            return CellValue.ofError(CellError.VALUE_ERROR);
+        }
+        return function.apply(statistics);
+    }
+
+    /**
+     * Parcourt la plage et accumule ses valeurs ; retourne l'erreur rencontrée, ou null.
+     * Toute cellule inexistante ou non numérique rend la plage invalide.
+     */
+    static CellValue scan(CellStore store, Cell origin, int startRow, int startColumn, int endRow, int endColumn,
+                          RangeStatistics statistics) throws CircularReferenceException {
+        // Parcours ligne par ligne : la première erreur rencontrée est la même qu'avec l'évaluation d'origine
+        for (int row = startRow; row <= endRow; row++) {
+            for (int col = startColumn; col <= endColumn; col++) {
+                byte type = store.getType(row, col);
+                if (type == CellStore.NONE) {
+                    return CellValue.ofError(CellError.VALUE_ERROR);
                 }
 
-                CellValue cellValue = cell.getValue();
+                if (row == origin.getRow() && col == origin.getColumn()) {
+                    throw new CircularReferenceException("Circular reference detected: " + origin);
+                }
 
-                if (cellValue.isError()) {
-                    return cellValue;
+                if (type == CellStore.ERROR) {
+                    return store.getValue(row, col);
                 }
 
-                if (!cellValue.isNumber()) {
+                if (type != CellStore.NUMBER) {
                     return CellValue.ofError(CellError.VALUE_ERROR);
                 }
 
-                values.add(cellValue.getNumberValue());
+                statistics.accept(store.getNumber(row, col));
             }
         }
-
-        if (values.isEmpty()) {
-            return CellValue.ofError(CellError.VALUE_ERROR);
-        }
-
-        switch (functionName) {
-            case "sum":
-                double sum = 0;
-                for (double d : values) sum += d;
-                return CellValue.ofNumber(sum);
-            case "avg":
-                double sumAvg = 0;
-                for (double d : values) sumAvg += d;
-                return CellValue.ofNumber(sumAvg / values.size());
-            case "min":
-                double min = Double.POSITIVE_INFINITY;
-                for (double d : values) min = Math.min(min, d);
-                return CellValue.ofNumber(min);
-            case "max":
-                double max = Double.NEGATIVE_INFINITY;
-                for (double d : values) max = Math.max(max, d);
-                return CellValue.ofNumber(max);
-            default:
-                return CellValue.ofError(CellError.SYNTAX_ERROR);
-        }
+        return null;
     }
 
+    @Override
+    public void accept(ExpressionVisitor visitor) {
+        visitor.function(functionName);
+        visitor.range(startRowOffset, startColumnOffset, endRowOffset, endColumnOffset);
+    }
 }
@@ -0,0 +1,88 @@
+package excel.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Registre des fonctions de plage reconnues dans les formules (ex: SUM(A1:A10)).
+ * Chaque fonction calcule son résultat à partir des {@link RangeStatistics} de la plage,
+ * accumulées en une seule passe commune à toutes les fonctions.
+ */
+public final class FunctionRegistry {
+    /**
+     * Fonction de plage : résultat à partir des statistiques d'une plage non vide et entièrement numérique
+     */
+    @FunctionalInterface
+    public interface RangeFunction {
+        CellValue apply(RangeStatistics statistics);
+    }
+
+    /**
+     * Statistiques dont une fonction a besoin, et donc la façon de les obtenir
+     */
+    public enum Aggregation {
+        RUNNING_SUM,  // nombre et somme : agrégat incrémental de la plage, O(1) par modification
+        BLOCK_SUMMARY // statistiques complètes : fusion des résumés par blocs de 64 lignes du stockage
+    }
+
+    private static final Map<String, RangeFunction> FUNCTIONS = new LinkedHashMap<>();
+    private static final Map<String, Aggregation> AGGREGATIONS = new LinkedHashMap<>();
+    private static volatile String[] names = new String[0];
+
+    static {
+        register("sum", Aggregation.RUNNING_SUM, statistics -> CellValue.ofNumber(statistics.getSum()));
+        register("avg", Aggregation.RUNNING_SUM, statistics -> CellValue.ofNumber(statistics.getMean()));
+        register("count", Aggregation.RUNNING_SUM, statistics -> CellValue.ofNumber(statistics.getCount()));
+        register("min", Aggregation.BLOCK_SUMMARY, statistics -> CellValue.ofNumber(statistics.getMin()));
+        register("max", Aggregation.BLOCK_SUMMARY, statistics -> CellValue.ofNumber(statistics.getMax()));
+        register("product", statistics -> CellValue.ofNumber(statistics.getProduct()));
+        register("stdev", statistics -> statistics.getCount() < 2
+                ? CellValue.ofError(CellError.VALUE_ERROR)
+                : CellValue.ofNumber(Math.sqrt(statistics.getSampleVariance())));
+    }
+
+    private FunctionRegistry() {
+    }
+
+    /**
+     * Enregistre une fonction sous un nom (insensible à la casse) ; elle reçoit des statistiques complètes
+     */
+    public static void register(String name, RangeFunction function) {
+        register(name, Aggregation.BLOCK_SUMMARY, function);
+    }
+
+    /**
+     * Enregistre une fonction qui n'utilise que les statistiques de l'agrégation indiquée
+     */
+    public static synchronized void register(String name, Aggregation aggregation, RangeFunction function) {
+        FUNCTIONS.put(name.toLowerCase(), function);
+        AGGREGATIONS.put(name.toLowerCase(), aggregation);
+        names = FUNCTIONS.keySet().toArray(new String[0]);
+    }
+
+    /**
+     * Fonction enregistrée sous ce nom, ou null
+     */
+    public static synchronized RangeFunction get(String name) {
+        return FUNCTIONS.get(name.toLowerCase());
+    }
+
+    public static synchronized Aggregation getAggregation(String name) {
+        Aggregation aggregation = AGGREGATIONS.get(name.toLowerCase());
+        return aggregation != null ? aggregation : Aggregation.BLOCK_SUMMARY;
+    }
+
+    /**
+     * Nom canonique (en minuscules) de la fonction écrite entre start et end dans le texte, ou null.
+     * Utilisé par l'analyse lexicale, sans extraire de sous-chaîne.
+     */
+    static String findName(String source, int start, int end) {
+        int length = end - start;
+        for (String name : names) {
+            if (name.length() == length && source.regionMatches(true, start, name, 0, length)) {
+                return name;
+            }
+        }
+        return null;
+    }
+}
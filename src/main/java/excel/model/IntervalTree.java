@@ -0,0 +1,169 @@
+package excel.model;
+
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Arbre d'intervalles (treap augmenté du maximum des bornes supérieures).
+ * La recherche des intervalles contenant un point coûte O(log n + k).
+ */
+class IntervalTree<T> {
+    private static final Random PRIORITIES = new Random();
+
+    private static final class Node<T> {
+        final int start;
+        final int end;
+        final long id;
+        final T value;
+        final int priority;
+        int maxEnd;
+        Node<T> left;
+        Node<T> right;
+
+        Node(int start, int end, long id, T value, int priority) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+            this.value = value;
+            this.priority = priority;
+            this.maxEnd = end;
+        }
+    }
+
+    private Node<T> root;
+    private int size = 0;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Insère l'intervalle [start, end]; l'identifiant doit être unique pour un même début
+     */
+    public void insert(int start, int end, long id, T value) {
+        root = insert(root, new Node<>(start, end, id, value, PRIORITIES.nextInt()));
+        size++;
+    }
+
+    /**
+     * Supprime l'intervalle identifié par son début et son identifiant
+     */
+    public boolean remove(int start, long id) {
+        int before = size;
+        root = remove(root, start, id);
+        return size < before;
+    }
+
+    /**
+     * Visite toutes les valeurs dont l'intervalle contient le point donné
+     */
+    public void stab(int point, Consumer<T> visitor) {
+        stab(root, point, visitor);
+    }
+
+    private void stab(Node<T> node, int point, Consumer<T> visitor) {
+        while (node != null && node.maxEnd >= point) {
+            stab(node.left, point, visitor);
+            if (node.start > point) {
+                return;
+            }
+            if (node.end >= point) {
+                visitor.accept(node.value);
+            }
+            node = node.right;
+        }
+    }
+
+    private static int compare(int start, long id, Node<?> node) {
+        if (start != node.start) {
+            return start < node.start ? -1 : 1;
+        }
+        return Long.compare(id, node.id);
+    }
+
+    private Node<T> insert(Node<T> node, Node<T> created) {
+        if (node == null) {
+            return created;
+        }
+        if (compare(created.start, created.id, node) < 0) {
+            node.left = insert(node.left, created);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, created);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private Node<T> remove(Node<T> node, int start, long id) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, id, node);
+        if (cmp < 0) {
+            node.left = remove(node.left, start, id);
+        } else if (cmp > 0) {
+            node.right = remove(node.right, start, id);
+        } else {
+            size--;
+            return merge(node.left, node.right);
+        }
+        update(node);
+        return node;
+    }
+
+    private Node<T> merge(Node<T> left, Node<T> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private Node<T> rotateRight(Node<T> node) {
+        Node<T> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private Node<T> rotateLeft(Node<T> node) {
+        Node<T> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static void update(Node<?> node) {
+        int maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd > maxEnd) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd > maxEnd) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+}
@@ -11,7 +11,7 @@ public class LiteralExpression implements Expression {
     }
 
     @Override
-    public CellValue evaluate(SpreadsheetModel spreadsheet) {
+    public CellValue evaluate(SpreadsheetModel spreadsheet, Cell origin) {
         return value;
     }
 }
\ No newline at end of file
@@ -38,8 +38,8 @@ public class LogicalExpression implements Expression {
     }
 
     @Override
-    public CellValue evaluate(SpreadsheetModel spreadsheet)throws CircularReferenceException {
-        CellValue leftValue = left.evaluate(spreadsheet);
+    public CellValue evaluate(SpreadsheetModel spreadsheet, Cell origin) throws CircularReferenceException {
+        CellValue leftValue = left.evaluate(spreadsheet, origin);
 
         // Vérifier si l'opérande gauche est une erreur
         if (leftValue.isError()) return leftValue;
@@ -52,7 +52,7 @@ public class LogicalExpression implements Expression {
         }
 
         // Pour les opérateurs binaires, évaluer l'opérande droite
-        CellValue rightValue = right.evaluate(spreadsheet);
+        CellValue rightValue = right.evaluate(spreadsheet, origin);
         if (rightValue.isError()) return rightValue;
         if (!rightValue.isBoolean()) return CellValue.ofError(CellError.SYNTAX_ERROR);
 
@@ -66,6 +66,14 @@ public class LogicalExpression implements Expression {
         }
     }
 
+    @Override
+    public void accept(ExpressionVisitor visitor) {
+        left.accept(visitor);
+        if (right != null) {
+            right.accept(visitor);
+        }
+    }
+
     /**
      * Convertit une valeur en booléen selon les règles du tableur:
      * - Booléen: tel quel
@@ -0,0 +1,77 @@
+package excel.model;
+
+/**
+ * Agrégat d'une plage référencée par une formule, tenu à jour à chaque écriture d'une valeur de la plage :
+ * nombre de cellules numériques et en erreur, et somme compensée des nombres.
+ * Après une première lecture complète, une modification de cellule l'ajuste en O(1).
+ * L'agrégat est relu entièrement après autant de mises à jour que la plage compte de cellules,
+ * ce qui borne la dérive des arrondis sans changer le coût amorti.
+ */
+final class RangeAggregate {
+    private final CellRange range;
+    private final long size;
+    private boolean initialized = false;
+    private long updatesSinceScan = 0;
+    private long numeric = 0;
+    private long errors = 0;
+    private final RangeStatistics.CompensatedSum sum = new RangeStatistics.CompensatedSum();
+
+    RangeAggregate(CellRange range) {
+        this.range = range;
+        this.size = range.size();
+    }
+
+    /**
+     * Répercute le changement de valeur d'une cellule de la plage
+     */
+    synchronized void update(byte oldType, double oldNumber, byte newType, double newNumber) {
+        if (!initialized) {
+            return;
+        }
+        numeric += (newType == CellStore.NUMBER ? 1 : 0) - (oldType == CellStore.NUMBER ? 1 : 0);
+        errors += (newType == CellStore.ERROR ? 1 : 0) - (oldType == CellStore.ERROR ? 1 : 0);
+        if (oldType == CellStore.NUMBER) {
+            if (!Double.isFinite(oldNumber) || !Double.isFinite(sum.get())) {
+                // Retirer une valeur d'une somme infinie ou NaN n'est pas possible : relecture complète
+                initialized = false;
+                return;
+            }
+            sum.add(-oldNumber);
+        }
+        if (newType == CellStore.NUMBER) {
+            sum.add(newNumber);
+        }
+        updatesSinceScan++;
+    }
+
+    /**
+     * Évalue une fonction de nombre et de somme à partir de l'agrégat, ou retourne null si la plage contient
+     * une erreur (l'appelant la parcourt alors pour retrouver la première, comme auparavant)
+     */
+    synchronized CellValue evaluate(CellStore store, FunctionRegistry.RangeFunction function) {
+        if (!initialized || updatesSinceScan > size) {
+            scan(store);
+        }
+        if (errors > 0) {
+            return null;
+        }
+        // Une cellule absente ou non numérique rend la plage invalide
+        if (numeric != size || numeric == 0) {
+            return CellValue.ofError(CellError.VALUE_ERROR);
+        }
+        return function.apply(RangeStatistics.ofSum(numeric, sum.get()));
+    }
+
+    // Relecture à partir des résumés par blocs du stockage : O(n/64 + 64) par colonne
+    private void scan(CellStore store) {
+        RangeStatistics statistics = new RangeStatistics();
+        errors = 0;
+        for (int col = range.getFirstColumn(); col <= range.getLastColumn(); col++) {
+            errors += store.summarize(range.getFirstRow(), range.getLastRow(), col, statistics);
+        }
+        numeric = statistics.getCount();
+        sum.copyFrom(statistics.getCompensatedSum());
+        initialized = true;
+        updatesSinceScan = 0;
+    }
+}
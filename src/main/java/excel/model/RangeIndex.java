@@ -0,0 +1,156 @@
+package excel.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Index des plages référencées par les formules (ex: SUM(A1:A100000)).
+ * Chaque plage est enregistrée une seule fois, sous forme d'intervalle de lignes,
+ * dans l'arbre d'intervalles de chacune de ses colonnes : retrouver les formules
+ * couvrant une cellule coûte O(log n) au lieu d'une arête par cellule de la plage.
+ * Chaque plage enregistrée porte aussi un {@link RangeAggregate} tenu à jour à chaque écriture de valeur.
+ */
+public class RangeIndex {
+    private static final class Registration {
+        final Cell owner;
+        final CellRange range;
+        final long id;
+        final RangeAggregate aggregate;
+
+        Registration(Cell owner, CellRange range, long id) {
+            this.owner = owner;
+            this.range = range;
+            this.id = id;
+            this.aggregate = new RangeAggregate(range);
+        }
+    }
+
+    private final int columnCount;
+    private final List<IntervalTree<Registration>> columns;
+    private final Map<Cell, List<Registration>> registrations = new HashMap<>();
+    private long nextId = 0;
+    private int rangeCount = 0;
+
+    public RangeIndex(int columnCount) {
+        this.columnCount = columnCount;
+        this.columns = new ArrayList<>(Collections.nCopies(columnCount, null));
+    }
+
+    /**
+     * Remplace les plages dont dépend la cellule
+     */
+    public void setRanges(Cell owner, List<CellRange> ranges) {
+        clear(owner);
+        if (ranges.isEmpty()) {
+            return;
+        }
+        List<Registration> list = new ArrayList<>(ranges.size());
+        for (CellRange range : new LinkedHashSet<>(ranges)) {
+            Registration registration = new Registration(owner, range, nextId++);
+            int lastColumn = Math.min(range.getLastColumn(), columnCount - 1);
+            for (int col = Math.max(range.getFirstColumn(), 0); col <= lastColumn; col++) {
+                IntervalTree<Registration> tree = columns.get(col);
+                if (tree == null) {
+                    tree = new IntervalTree<>();
+                    columns.set(col, tree);
+                }
+                tree.insert(range.getFirstRow(), range.getLastRow(), registration.id, registration);
+            }
+            list.add(registration);
+        }
+        registrations.put(owner, list);
+        rangeCount += list.size();
+    }
+
+    /**
+     * Retire toutes les plages enregistrées pour la cellule
+     */
+    public void clear(Cell owner) {
+        List<Registration> list = registrations.remove(owner);
+        if (list == null) {
+            return;
+        }
+        for (Registration registration : list) {
+            CellRange range = registration.range;
+            int lastColumn = Math.min(range.getLastColumn(), columnCount - 1);
+            for (int col = Math.max(range.getFirstColumn(), 0); col <= lastColumn; col++) {
+                IntervalTree<Registration> tree = columns.get(col);
+                if (tree != null) {
+                    tree.remove(range.getFirstRow(), registration.id);
+                }
+            }
+        }
+        rangeCount -= list.size();
+    }
+
+    /**
+     * Visite les cellules dont une plage couvre la position donnée
+     */
+    public void forEachCovering(int row, int column, Consumer<Cell> visitor) {
+        if (column < 0 || column >= columnCount) {
+            return;
+        }
+        IntervalTree<Registration> tree = columns.get(column);
+        if (tree != null) {
+            tree.stab(row, registration -> visitor.accept(registration.owner));
+        }
+    }
+
+    /**
+     * Répercute le changement de valeur d'une cellule sur les agrégats des plages qui la couvrent
+     */
+    public void updateAggregates(int row, int column, byte oldType, double oldNumber, byte newType, double newNumber) {
+        if (column < 0 || column >= columnCount) {
+            return;
+        }
+        IntervalTree<Registration> tree = columns.get(column);
+        if (tree != null) {
+            tree.stab(row, registration -> registration.aggregate.update(oldType, oldNumber, newType, newNumber));
+        }
+    }
+
+    /**
+     * Agrégat de la plage donnée enregistrée pour la cellule, ou null
+     */
+    RangeAggregate findAggregate(Cell owner, int firstRow, int firstColumn, int lastRow, int lastColumn) {
+        List<Registration> list = registrations.get(owner);
+        if (list == null) {
+            return null;
+        }
+        for (Registration registration : list) {
+            CellRange range = registration.range;
+            if (range.getFirstRow() == firstRow && range.getFirstColumn() == firstColumn
+                    && range.getLastRow() == lastRow && range.getLastColumn() == lastColumn) {
+                return registration.aggregate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Plages enregistrées pour la cellule
+     */
+    public List<CellRange> getRanges(Cell owner) {
+        List<Registration> list = registrations.get(owner);
+        if (list == null) {
+            return Collections.emptyList();
+        }
+        List<CellRange> ranges = new ArrayList<>(list.size());
+        for (Registration registration : list) {
+            ranges.add(registration.range);
+        }
+        return ranges;
+    }
+
+    /**
+     * Nombre de plages enregistrées
+     */
+    public int getRangeCount() {
+        return rangeCount;
+    }
+}
@@ -0,0 +1,163 @@
+package excel.model;
+
+/**
+ * Accumulateur à une passe des valeurs numériques d'une plage, sans boxing :
+ * nombre de valeurs, somme compensée (Kahan-Neumaier), minimum, maximum, produit,
+ * moyenne et écart quadratique (Welford) pour l'écart-type.
+ * Deux accumulateurs peuvent être fusionnés (résumés par blocs, calcul parallèle).
+ */
+public final class RangeStatistics {
+    private long count = 0;
+    private final CompensatedSum sum = new CompensatedSum();
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private double product = 1;
+    private double mean = 0;
+    private double squaredDeviations = 0;
+
+    /**
+     * Statistiques réduites au nombre de valeurs et à leur somme (agrégat incrémental)
+     */
+    static RangeStatistics ofSum(long count, double sum) {
+        RangeStatistics statistics = new RangeStatistics();
+        statistics.count = count;
+        statistics.sum.add(sum);
+        return statistics;
+    }
+
+    public void accept(double value) {
+        count++;
+        sum.add(value);
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+        product *= value;
+        double delta = value - mean;
+        mean += delta / count;
+        squaredDeviations += delta * (value - mean);
+    }
+
+    /**
+     * Ajoute les valeurs résumées par un autre accumulateur
+     */
+    public void merge(RangeStatistics other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (count == 0) {
+            copyFrom(other);
+            return;
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        squaredDeviations += other.squaredDeviations + delta * delta * ((double) count * other.count / total);
+        mean += delta * other.count / total;
+        sum.add(other.sum);
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        product *= other.product;
+        count = total;
+    }
+
+    public void reset() {
+        count = 0;
+        sum.reset();
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+        product = 1;
+        mean = 0;
+        squaredDeviations = 0;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getSum() {
+        return sum.get();
+    }
+
+    /**
+     * Somme avec sa compensation, reprise par l'agrégat incrémental après une relecture
+     */
+    CompensatedSum getCompensatedSum() {
+        return sum;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    public double getProduct() {
+        return product;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : getSum() / count;
+    }
+
+    /**
+     * Variance d'échantillon (n - 1), NaN pour moins de deux valeurs
+     */
+    public double getSampleVariance() {
+        return count < 2 ? Double.NaN : Math.max(0, squaredDeviations / (count - 1));
+    }
+
+    private void copyFrom(RangeStatistics other) {
+        count = other.count;
+        sum.copyFrom(other.sum);
+        min = other.min;
+        max = other.max;
+        product = other.product;
+        mean = other.mean;
+        squaredDeviations = other.squaredDeviations;
+    }
+
+    /**
+     * Somme compensée de Neumaier : l'erreur d'arrondi de chaque addition est accumulée à part.
+     * Une fois la somme infinie ou NaN (dépassement, valeur infinie), la compensation n'a plus de sens :
+     * la somme est gardée telle quelle, comme une addition simple de doubles.
+     */
+    static final class CompensatedSum {
+        private double sum = 0;
+        private double compensation = 0;
+
+        void add(double value) {
+            double total = sum + value;
+            if (!Double.isFinite(total)) {
+                compensation = 0;
+            } else if (Math.abs(sum) >= Math.abs(value)) {
+                compensation += (sum - total) + value;
+            } else {
+                compensation += (value - total) + sum;
+            }
+            sum = total;
+        }
+
+        void add(CompensatedSum other) {
+            add(other.sum);
+            add(other.compensation);
+        }
+
+        double get() {
+            return Double.isFinite(sum) ? sum + compensation : sum;
+        }
+
+        void reset() {
+            sum = 0;
+            compensation = 0;
+        }
+
+        void copyFrom(CompensatedSum other) {
+            sum = other.sum;
+            compensation = other.compensation;
+        }
+    }
+}
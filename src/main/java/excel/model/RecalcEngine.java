@@ -0,0 +1,354 @@
+package excel.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moteur de recalcul : marque les dépendants transitifs d'une cellule modifiée,
+ * les ordonne topologiquement et évalue chacun d'eux une seule fois.
+ * Les parcours sont itératifs pour supporter des chaînes de dépendances très longues.
+ * <p>
+ * Les cellules sont évaluées par niveaux : un niveau ne contient que des cellules dont les antécédents
+ * appartiennent aux niveaux précédents. Un niveau assez large est évalué en parallèle sur le
+ * ForkJoinPool commun ; les écouteurs du modèle ne sont prévenus qu'en fin de passe, sur le thread appelant.
+ * <p>
+ * Une passe peut être abandonnée : chaque demande de recalcul reçoit un jeton de génération ({@link #supersede()}),
+ * et une passe dont le jeton a été dépassé s'arrête au point de contrôle suivant (entre deux tranches de cellules).
+ * Les cellules qu'elle n'a pas évaluées sont reportées sur la passe suivante, qui les réévalue avec les siennes.
+ * Le moteur n'est utilisé que par un thread à la fois ; seuls {@link #supersede()} et la progression
+ * peuvent être appelés ou observés depuis un autre thread.
+ */
+public class RecalcEngine {
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 256;
+    // Nombre de cellules évaluées entre deux points de contrôle (abandon et progression)
+    static final int SLICE_SIZE = 4096;
+
+    /**
+     * Jeton d'une passe qui n'est jamais abandonnée (valeurs à enregistrer)
+     */
+    public static final long UNCANCELLABLE = Long.MIN_VALUE;
+
+    private final SpreadsheetModel spreadsheet;
+    private volatile int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+    private final AtomicLong generation = new AtomicLong();
+    // Cellules laissées par une passe abandonnée, à réévaluer par la suivante
+    private final Set<Cell> pending = new LinkedHashSet<>();
+
+    public RecalcEngine(SpreadsheetModel spreadsheet) {
+        this.spreadsheet = spreadsheet;
+    }
+
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * Nombre minimal de cellules d'un niveau pour l'évaluer en parallèle ;
+     * en dessous, l'évaluation reste sur le thread appelant (édition courante)
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        if (parallelThreshold < 1) {
+            throw new IllegalArgumentException("Seuil de parallélisme invalide: " + parallelThreshold);
+        }
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Annonce une nouvelle demande de recalcul : les passes lancées avec un jeton antérieur,
+     * en cours ou en attente, sont abandonnées à leur prochain point de contrôle
+     *
+     * @return le jeton de la nouvelle demande
+     */
+    public long supersede() {
+        return generation.incrementAndGet();
+    }
+
+    public long currentGeneration() {
+        return generation.get();
+    }
+
+    public boolean isSuperseded(long token) {
+        return token != UNCANCELLABLE && token != generation.get();
+    }
+
+    /**
+     * Vrai si une passe abandonnée a laissé des cellules à réévaluer
+     */
+    public boolean hasPendingCells() {
+        return !pending.isEmpty();
+    }
+
+    /**
+     * Reconstruit la cellule modifiée puis réévalue toutes les cellules qui en dépendent
+     */
+    public void recalculate(Cell changed) {
+        recalculate(Collections.singletonList(changed));
+    }
+
+    /**
+     * Reconstruit un ensemble de cellules modifiées (fin d'un lot, chargement de fichier), puis réévalue
+     * en une seule passe topologique ces cellules et tous leurs dépendants : l'ordre d'écriture
+     * n'a pas d'influence, une référence vers une cellule écrite plus tard voit sa valeur finale
+     */
+    public void recalculate(Collection<Cell> changed) {
+        recalculate(changed, generation.get());
+    }
+
+    /**
+     * Comme {@link #recalculate(Collection)}, pour une demande identifiée par son jeton : si une demande
+     * plus récente l'a dépassée, la passe s'interrompt et reporte les cellules non évaluées sur la suivante.
+     * Les cellules déjà évaluées sont tout de même publiées.
+     */
+    public void recalculate(Collection<Cell> changed, long token) {
+        // Reconstruire d'abord toutes les cellules modifiées pour que le graphe soit complet
+        rebuild(changed);
+
+        // Marquer les cellules sales et mémoriser les arêtes du sous-graphe concerné
+        Set<Cell> roots = new LinkedHashSet<>(pending);
+        roots.addAll(changed);
+        pending.clear();
+        if (isSuperseded(token)) {
+            // Une demande plus récente suit : elle évaluera ces cellules avec les siennes
+            pending.addAll(roots);
+            return;
+        }
+
+        Set<Cell> dirty = new LinkedHashSet<>();
+        Map<Cell, List<Cell>> edges = new HashMap<>();
+        Deque<Cell> stack = new ArrayDeque<>();
+        for (Cell cell : roots) {
+            if (dirty.add(cell)) {
+                stack.push(cell);
+            }
+        }
+        while (!stack.isEmpty()) {
+            Cell cell = stack.pop();
+            List<Cell> dependents = new ArrayList<>(spreadsheet.getDependencyGraph().getDependents(cell));
+            edges.put(cell, dependents);
+            for (Cell dependent : dependents) {
+                if (dirty.add(dependent)) {
+                    stack.push(dependent);
+                }
+            }
+        }
+
+        // Degré entrant de chaque cellule à l'intérieur de l'ensemble sale
+        Map<Cell, Integer> indegree = new HashMap<>();
+        for (Cell cell : dirty) {
+            indegree.put(cell, 0);
+        }
+        for (List<Cell> dependents : edges.values()) {
+            for (Cell dependent : dependents) {
+                indegree.merge(dependent, 1, Integer::sum);
+            }
+        }
+
+        // Tri topologique (Kahn) par niveaux : chaque cellule est évaluée une fois ses antécédents à jour
+        List<Cell> level = new ArrayList<>();
+        for (Cell cell : dirty) {
+            if (indegree.get(cell) == 0) {
+                level.add(cell);
+            }
+        }
+        List<Cell> evaluated = new ArrayList<>(dirty.size());
+        spreadsheet.fireRecalcProgress(0, dirty.size());
+        while (!level.isEmpty() || evaluated.size() < dirty.size()) {
+            if (level.isEmpty()) {
+                // Les cellules restantes sont dans un cycle ou en dépendent : seuls les membres des cycles
+                // sont marqués, leurs dépendants sont évalués ensuite comme ils le seraient après une
+                // modification isolée, sur la valeur d'erreur des cellules du cycle
+                level = markCycles(dirty, edges, indegree, evaluated);
+                continue;
+            }
+            int count = evaluateLevel(level, token, evaluated.size(), dirty.size());
+            evaluated.addAll(level.subList(0, count));
+            if (count < level.size()) {
+                // Passe dépassée : le reste du niveau et les niveaux suivants sont reportés
+                pending.addAll(level.subList(count, level.size()));
+                for (Cell cell : dirty) {
+                    if (indegree.get(cell) > 0) {
+                        pending.add(cell);
+                    }
+                }
+                spreadsheet.fireValuesChanged(evaluated);
+                return;
+            }
+            List<Cell> next = new ArrayList<>();
+            for (Cell cell : level) {
+                for (Cell dependent : edges.get(cell)) {
+                    if (indegree.merge(dependent, -1, Integer::sum) == 0) {
+                        next.add(dependent);
+                    }
+                }
+            }
+            level = next;
+        }
+
+        // Publication groupée des nouvelles valeurs
+        spreadsheet.fireValuesChanged(new ArrayList<>(dirty));
+        spreadsheet.fireRecalcProgress(dirty.size(), dirty.size());
+    }
+
+    /**
+     * Marque les cellules des cycles parmi celles que le tri topologique n'a pas atteintes, c'est-à-dire
+     * les composantes fortement connexes de plus d'une cellule et les cellules qui se référencent elles-mêmes
+     * (Tarjan, en itératif pour les longues chaînes). Les cellules marquées sont ajoutées aux évaluées.
+     *
+     * @return les dépendants qui n'attendaient plus que ces cellules, premier niveau de la suite du tri
+     */
+    private static List<Cell> markCycles(Set<Cell> dirty, Map<Cell, List<Cell>> edges, Map<Cell, Integer> indegree,
+                                         List<Cell> evaluated) {
+        Map<Cell, Integer> index = new HashMap<>();
+        Map<Cell, Integer> low = new HashMap<>();
+        Deque<Cell> component = new ArrayDeque<>();
+        Set<Cell> onComponent = new HashSet<>();
+        Set<Cell> cyclic = new LinkedHashSet<>();
+        Deque<Cell> path = new ArrayDeque<>();
+        Deque<Iterator<Cell>> iterators = new ArrayDeque<>();
+
+        for (Cell root : dirty) {
+            if (indegree.get(root) == 0 || index.containsKey(root)) {
+                continue;
+            }
+            visit(root, index, low, component, onComponent, path, iterators, edges);
+            while (!path.isEmpty()) {
+                Cell cell = path.peek();
+                Iterator<Cell> dependents = iterators.peek();
+                if (dependents.hasNext()) {
+                    // Les dépendants d'une cellule non atteinte ne l'ont pas été non plus
+                    Cell dependent = dependents.next();
+                    if (!index.containsKey(dependent)) {
+                        visit(dependent, index, low, component, onComponent, path, iterators, edges);
+                    } else if (onComponent.contains(dependent)) {
+                        low.merge(cell, index.get(dependent), Math::min);
+                    }
+                    continue;
+                }
+                path.pop();
+                iterators.pop();
+                if (!path.isEmpty()) {
+                    low.merge(path.peek(), low.get(cell), Math::min);
+                }
+                if (low.get(cell).equals(index.get(cell))) {
+                    List<Cell> members = new ArrayList<>();
+                    Cell member;
+                    do {
+                        member = component.pop();
+                        onComponent.remove(member);
+                        members.add(member);
+                    } while (member != cell);
+                    if (members.size() > 1 || edges.get(cell).contains(cell)) {
+                        cyclic.addAll(members);
+                    }
+                }
+            }
+        }
+
+        for (Cell cell : cyclic) {
+            cell.markCircular();
+            indegree.put(cell, 0);
+            evaluated.add(cell);
+        }
+        List<Cell> next = new ArrayList<>();
+        for (Cell cell : cyclic) {
+            for (Cell dependent : edges.get(cell)) {
+                if (!cyclic.contains(dependent) && indegree.merge(dependent, -1, Integer::sum) == 0) {
+                    next.add(dependent);
+                }
+            }
+        }
+        return next;
+    }
+
+    private static void visit(Cell cell, Map<Cell, Integer> index, Map<Cell, Integer> low, Deque<Cell> component,
+                              Set<Cell> onComponent, Deque<Cell> path, Deque<Iterator<Cell>> iterators,
+                              Map<Cell, List<Cell>> edges) {
+        index.put(cell, index.size());
+        low.put(cell, index.get(cell));
+        component.push(cell);
+        onComponent.add(cell);
+        path.push(cell);
+        iterators.push(edges.get(cell).iterator());
+    }
+
+    /**
+     * Reconstruit des cellules modifiées (formules compilées, graphe complété) sans les évaluer :
+     * elles le seront par la prochaine passe. Un chargement peut ainsi être affiché avant son recalcul.
+     */
+    public void rebuildDeferred(Collection<Cell> changed) {
+        rebuild(changed);
+        pending.addAll(changed);
+    }
+
+    private void rebuild(Collection<Cell> changed) {
+        if (changed.size() > 1) {
+            rebuildAll(changed);
+        } else {
+            for (Cell cell : changed) {
+                cell.rebuild();
+            }
+        }
+    }
+
+    // Les formules d'un lot sont compilées en parallèle ; le graphe, lui, est mis à jour sur le thread appelant
+    private void rebuildAll(Collection<Cell> changed) {
+        List<Cell> formulaCells = new ArrayList<>();
+        for (Cell cell : changed) {
+            if (cell.getContent().startsWith("=")) {
+                formulaCells.add(cell);
+            }
+        }
+        String[] contents = new String[formulaCells.size()];
+        int[] rows = new int[contents.length];
+        int[] columns = new int[contents.length];
+        for (int i = 0; i < contents.length; i++) {
+            Cell cell = formulaCells.get(i);
+            contents[i] = Cell.formulaText(cell.getContent());
+            rows[i] = cell.getRow();
+            columns[i] = cell.getColumn();
+        }
+        CompiledFormula[] formulas = spreadsheet.getExpressionBuilder().compileAll(contents, rows, columns);
+
+        Map<Cell, CompiledFormula> compiled = new HashMap<>(formulas.length * 2);
+        for (int i = 0; i < formulas.length; i++) {
+            compiled.put(formulaCells.get(i), formulas[i]);
+        }
+        for (Cell cell : changed) {
+            cell.rebuild(compiled.get(cell));
+        }
+    }
+
+    // Évalue un niveau par tranches et retourne le nombre de cellules évaluées avant un éventuel abandon
+    private int evaluateLevel(List<Cell> level, long token, int done, int total) {
+        for (int from = 0; from < level.size(); from += SLICE_SIZE) {
+            if (isSuperseded(token)) {
+                return from;
+            }
+            int to = Math.min(from + SLICE_SIZE, level.size());
+            List<Cell> slice = level.subList(from, to);
+            if (slice.size() >= parallelThreshold) {
+                slice.parallelStream().forEach(Cell::recalculate);
+            } else {
+                for (Cell cell : slice) {
+                    cell.recalculate();
+                }
+            }
+            if (to < level.size()) {
+                spreadsheet.fireRecalcProgress(done + to, total);
+            }
+        }
+        spreadsheet.fireRecalcProgress(done + level.size(), total);
+        return level.size();
+    }
+}
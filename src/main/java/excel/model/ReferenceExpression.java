@@ -6,49 +6,45 @@ import excel.tools.ExcelConverter;
  * Expression représentant une référence à une autre cellule
  */
 public class ReferenceExpression implements Expression {
-    private final String cellReference;
-    private final Cell sourceCell; // La cellule qui contient cette référence
-
-    public ReferenceExpression(String cellReference, SpreadsheetModel spreadsheet, Cell sourceCell) {
-        this.cellReference = cellReference;
-        this.sourceCell = sourceCell;
-        if (spreadsheet != null && sourceCell != null) {
-            int[] coords = ExcelConverter.excelToRowCol(cellReference);
-            int row = coords[0];
-            int col = coords[1];
-            Cell referencedCell = spreadsheet.getCell(row, col);
-            if (referencedCell != null) {
-                if (referencedCell.getValue().format().compareTo(sourceCell.getAddress())==0){
-                    throw new CircularReferenceException("Circular reference detected: " + cellReference);
-                }
-                spreadsheet.addDependency(sourceCell, referencedCell);
-            }
-        }
+    // Décalage par rapport à la cellule qui contient la formule : l'arbre est partageable entre recopies
+    private final int rowOffset;
+    private final int columnOffset;
+
+    public ReferenceExpression(int rowOffset, int columnOffset) {
+        this.rowOffset = rowOffset;
+        this.columnOffset = columnOffset;
+    }
+
+    public int getRowOffset() {
+        return rowOffset;
     }
 
-    public ReferenceExpression(String cellReference) {
-        this(cellReference, null, null);
+    public int getColumnOffset() {
+        return columnOffset;
     }
 
     @Override
-    public CellValue evaluate(SpreadsheetModel spreadsheet) throws CircularReferenceException {
+    public void accept(ExpressionVisitor visitor) {
+        visitor.reference(rowOffset, columnOffset);
+    }
+
+    @Override
+    public CellValue evaluate(SpreadsheetModel spreadsheet, Cell origin) throws CircularReferenceException {
         if (spreadsheet == null) {
             return CellValue.ofError(CellError.VALUE_ERROR);
         }
 
-        int[] coords = ExcelConverter.excelToRowCol(cellReference);
-        int row = coords[0];
-        int col = coords[1];
+        int row = origin.getRow() + rowOffset;
+        int col = origin.getColumn() + columnOffset;
 
-        Cell referencedCell = spreadsheet.getCell(row, col);
-        if (referencedCell == null || referencedCell.getValue().format().isEmpty()) {
+        Cell referencedCell = spreadsheet.findCell(row, col);
+        if (referencedCell == null || referencedCell.getValue().isEmpty()) {
             return CellValue.ofError(CellError.VALUE_ERROR);
         }
 
-
         // Vérifie la présence d'une référence circulaire
         if (referencedCell.isEvaluating()) {
-            throw new CircularReferenceException("Circular reference detected: " + cellReference);
+            throw new CircularReferenceException("Circular reference detected: " + ExcelConverter.rowColToExcel(row, col));
         }
         // Retourne la valeur de la cellule référencée
         return referencedCell.getValue();
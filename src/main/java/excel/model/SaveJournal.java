@@ -0,0 +1,76 @@
+package excel.model;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * État de sauvegarde d'une feuille : fichier binaire écrit en dernier, tailles de son corps et de son journal,
+ * et cellules dont le contenu a changé depuis. Une sauvegarde incrémentale n'ajoute au fichier que ces cellules.
+ */
+final class SaveJournal {
+    private Path path;
+    private long bodyLength;
+    private long fileLength;
+    private final Set<Cell> changedCells = new LinkedHashSet<>();
+
+    void cellChanged(Cell cell) {
+        changedCells.add(cell);
+    }
+
+    boolean hasChanges() {
+        return !changedCells.isEmpty();
+    }
+
+    List<Cell> getChangedCells() {
+        return new ArrayList<>(changedCells);
+    }
+
+    /**
+     * Vrai si le fichier donné est celui de la dernière sauvegarde et n'a pas changé de taille depuis
+     */
+    boolean canAppendTo(Path target, long currentLength) {
+        return path != null && path.equals(target.toAbsolutePath()) && fileLength == currentLength;
+    }
+
+    long getBodyLength() {
+        return bodyLength;
+    }
+
+    long getJournalLength() {
+        return fileLength - bodyLength;
+    }
+
+    /**
+     * Enregistre une sauvegarde complète (ou un chargement) : le journal du fichier est vide
+     */
+    void saved(Path target, long length) {
+        saved(target, length, length);
+    }
+
+    void saved(Path target, long body, long length) {
+        path = target.toAbsolutePath();
+        bodyLength = body;
+        fileLength = length;
+        changedCells.clear();
+    }
+
+    /**
+     * Enregistre l'ajout des cellules modifiées à la fin du journal
+     */
+    void appended(long length) {
+        fileLength = length;
+        changedCells.clear();
+    }
+
+    /**
+     * Oublie le fichier associé et les changements (feuille chargée d'un fichier texte) :
+     * la prochaine sauvegarde sera complète
+     */
+    void reset() {
+        path = null;
+        changedCells.clear();
+    }
+}
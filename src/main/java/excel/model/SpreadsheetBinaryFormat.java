@@ -0,0 +1,361 @@
+package excel.model;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Format binaire .e4e version 2, en colonnes (entiers en big-endian) :
+ * <pre>
+ * en-tête      : magic "E4EB" (int), version (short), options (short), lignes (int), colonnes (int)
+ * chaînes      : nombre (int), puis pour chacune longueur (int) et octets UTF-8 — contenus dédoublonnés
+ * colonnes     : nombre de blocs (int), puis pour chaque colonne non vide :
+ *                indice de colonne (int), nombre de cellules (int), puis par cellule ligne (int) et indice de chaîne (int)
+ *                et, si l'option VALUES est présente, la valeur calculée : type (byte) puis
+ *                nombre (double) | indice de chaîne (int) | booléen (byte) | erreur (byte)
+ * journal      : jusqu'à la fin du fichier, contenus modifiés depuis l'écriture du corps :
+ *                'J' (byte), ligne (int), colonne (int), longueur (int) et octets UTF-8 du contenu
+ * </pre>
+ * Le fichier est lu en entier dans le tas plutôt que projeté en mémoire : aucune projection ne subsiste
+ * lorsqu'une sauvegarde le remplace ou complète son journal.
+ */
+final class SpreadsheetBinaryFormat {
+    static final int MAGIC = 0x45344542; // "E4EB"
+    static final short VERSION = 2;
+    static final short OPTION_VALUES = 1;
+
+    private static final byte VALUE_TEXT = 1;
+    private static final byte VALUE_NUMBER = 2;
+    private static final byte VALUE_BOOLEAN = 3;
+    private static final byte VALUE_ERROR = 4;
+
+    // Enregistrement du journal : marqueur, ligne, colonne, puis contenu (longueur et octets UTF-8)
+    private static final byte JOURNAL_RECORD = 'J';
+    private static final int JOURNAL_HEADER_BYTES = 13;
+
+    // Nombre de cellules lues ou écrites entre deux signalements de progression (masque)
+    private static final int PROGRESS_MASK = 0xFFFF;
+
+    /**
+     * Table des chaînes dédoublonnées, et suite des indices référencés dans l'ordre d'écriture
+     */
+    private static final class StringTable {
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+        private int[] references = new int[1024];
+        private int referenceCount = 0;
+
+        // Une référence nulle (valeur non textuelle) réserve une place sans ajouter de chaîne
+        void reference(String string) {
+            int index = -1;
+            if (string != null) {
+                Integer known = indexes.putIfAbsent(string, values.size());
+                if (known == null) {
+                    index = values.size();
+                    values.add(string);
+                } else {
+                    index = known;
+                }
+            }
+            if (referenceCount == references.length) {
+                references = Arrays.copyOf(references, referenceCount * 2);
+            }
+            references[referenceCount++] = index;
+        }
+
+        int reference(int position) {
+            return references[position];
+        }
+
+        int size() {
+            return values.size();
+        }
+
+        List<String> values() {
+            return values;
+        }
+    }
+
+    private SpreadsheetBinaryFormat() {
+    }
+
+    /**
+     * Vrai si le fichier commence par l'en-tête du format binaire
+     */
+    static boolean isBinary(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(4);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // lecture des 4 premiers octets
+            }
+            return !header.hasRemaining() && header.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * Écrit le contenu de la feuille et, si demandé, les valeurs calculées, puis retient
+     * le fichier comme base des sauvegardes incrémentales. L'écriture se fait dans un fichier temporaire
+     * qui remplace la cible une fois complet : une sauvegarde interrompue laisse l'ancien fichier intact.
+     */
+    static void write(SpreadsheetModel spreadsheet, Path path, boolean withValues, DoubleConsumer progress)
+            throws IOException {
+        if (withValues) {
+            // Une passe abandonnée ou un chargement différé laisse des valeurs périmées : elles seraient
+            // relues telles quelles au chargement, sans être recalculées
+            spreadsheet.finishPendingRecalc();
+        }
+        // Première passe sur les seules cellules existantes : table des chaînes et nombre de cellules par colonne
+        CellStore store = spreadsheet.getCellStore();
+        StringTable strings = new StringTable();
+        List<Cell> cells = new ArrayList<>();
+        int[] counts = new int[spreadsheet.getColumnCount()];
+        for (int col = 0; col < counts.length; col++) {
+            store.forEachInColumn(col, cell -> {
+                if (cell.getContent().isEmpty()) {
+                    return;
+                }
+                cells.add(cell);
+                counts[cell.getColumn()]++;
+                strings.reference(cell.getContent());
+                if (withValues) {
+                    CellValue value = cell.getValue();
+                    strings.reference(value.isText() ? value.getTextValue() : null);
+                }
+            });
+        }
+        int chunkCount = 0;
+        for (int count : counts) {
+            chunkCount += count > 0 ? 1 : 0;
+        }
+
+        // Seconde passe : écriture, dans le même ordre
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        long written;
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ChannelOutput out = new ChannelOutput(channel);
+            out.putInt(MAGIC);
+            out.putShort(VERSION);
+            out.putShort(withValues ? OPTION_VALUES : 0);
+            out.putInt(spreadsheet.getRowCount());
+            out.putInt(spreadsheet.getColumnCount());
+
+            out.putInt(strings.size());
+            for (String string : strings.values()) {
+                out.putString(string);
+            }
+
+            out.putInt(chunkCount);
+            int reference = 0;
+            int previousColumn = -1;
+            for (int i = 0; i < cells.size(); i++) {
+                if ((i & PROGRESS_MASK) == 0) {
+                    SpreadsheetFileHandler.checkInterrupted();
+                    progress.accept((double) i / cells.size());
+                }
+                Cell cell = cells.get(i);
+                if (cell.getColumn() != previousColumn) {
+                    previousColumn = cell.getColumn();
+                    out.putInt(previousColumn);
+                    out.putInt(counts[previousColumn]);
+                }
+                out.putInt(cell.getRow());
+                out.putInt(strings.reference(reference++));
+                if (withValues) {
+                    writeValue(out, cell.getValue(), strings.reference(reference++));
+                }
+            }
+            out.close();
+            written = out.getWritten();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        try {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+        spreadsheet.getSaveJournal().saved(path, written);
+        progress.accept(1);
+    }
+
+    /**
+     * Sauvegarde incrémentale : si le fichier est celui de la dernière sauvegarde, seules les cellules modifiées
+     * depuis sont ajoutées à son journal. Le fichier est réécrit en entier (compacté) lorsqu'il n'est pas
+     * le bon, ou lorsque son journal dépasse la moitié de la taille du corps.
+     */
+    static void writeIncremental(SpreadsheetModel spreadsheet, Path path, DoubleConsumer progress) throws IOException {
+        SaveJournal journal = spreadsheet.getSaveJournal();
+        long length = Files.exists(path) ? Files.size(path) : -1;
+        if (!journal.canAppendTo(path, length) || journal.getJournalLength() > journal.getBodyLength() / 2) {
+            write(spreadsheet, path, true, progress);
+            return;
+        }
+        if (!journal.hasChanges()) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.position(length);
+            ChannelOutput out = new ChannelOutput(channel);
+            for (Cell cell : journal.getChangedCells()) {
+                out.putByte(JOURNAL_RECORD);
+                out.putInt(cell.getRow());
+                out.putInt(cell.getColumn());
+                out.putString(cell.getContent());
+            }
+            out.close();
+            journal.appended(length + out.getWritten());
+        }
+        progress.accept(1);
+    }
+
+    /**
+     * Lit un fichier binaire. Si le fichier contient les valeurs calculées,
+     * les cellules sont restaurées sans recalcul ; sinon les contenus sont affectés en un seul lot,
+     * reconstruit mais pas évalué (voir {@link SpreadsheetModel#endBatchDeferred()}).
+     *
+     * @throws IllegalArgumentException En cas de format de fichier invalide
+     */
+    static SpreadsheetModel read(Path path, DoubleConsumer progress) throws IOException {
+        ByteBuffer buffer = SpreadsheetFileHandler.readFully(path);
+        try {
+            return read(buffer, path, progress);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Fichier binaire tronqué ou corrompu", e);
+        }
+    }
+
+    private static SpreadsheetModel read(ByteBuffer buffer, Path path, DoubleConsumer progress) {
+        if (buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Fichier binaire invalide");
+        }
+        short version = buffer.getShort();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Version de fichier non supportée : " + version);
+        }
+        boolean withValues = (buffer.getShort() & OPTION_VALUES) != 0;
+        int rowCount = buffer.getInt();
+        int colCount = buffer.getInt();
+        if (rowCount < 0 || colCount < 0) {
+            throw new IllegalArgumentException("Dimensions invalides : " + rowCount + "," + colCount);
+        }
+
+        String[] strings = new String[buffer.getInt()];
+        byte[] bytes = new byte[256];
+        for (int i = 0; i < strings.length; i++) {
+            int length = buffer.getInt();
+            if (length > bytes.length) {
+                bytes = new byte[Math.max(length, bytes.length * 2)];
+            }
+            buffer.get(bytes, 0, length);
+            strings[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+
+        SpreadsheetModel spreadsheet = new SpreadsheetModel(rowCount, colCount);
+        spreadsheet.beginBatch();
+        int chunkCount = buffer.getInt();
+        int read = 0;
+        for (int c = 0; c < chunkCount; c++) {
+            int col = buffer.getInt();
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                if ((read++ & PROGRESS_MASK) == 0) {
+                    SpreadsheetFileHandler.checkInterrupted();
+                    progress.accept((double) buffer.position() / buffer.limit());
+                }
+                int row = buffer.getInt();
+                String content = strings[buffer.getInt()];
+                if (!spreadsheet.isInBounds(row, col)) {
+                    throw new IllegalArgumentException("Coordonnées de cellule hors limites : " + row + "," + col);
+                }
+                if (withValues) {
+                    spreadsheet.getCell(row, col).restore(content, readValue(buffer, strings));
+                } else {
+                    spreadsheet.getCell(row, col).setContent(content);
+                }
+            }
+        }
+        int bodyLength = buffer.position();
+
+        // Journal : contenus modifiés depuis l'écriture du corps, rejoués dans l'ordre.
+        // Un enregistrement incomplet en fin de fichier (ajout interrompu) est ignoré et n'est pas compté
+        // dans la taille retenue : elle ne correspond plus au fichier, qui sera donc réécrit en entier
+        // à la prochaine sauvegarde au lieu de recevoir des enregistrements à la suite de ces octets.
+        int journalEnd = bodyLength;
+        while (buffer.remaining() >= JOURNAL_HEADER_BYTES) {
+            if (buffer.get() != JOURNAL_RECORD) {
+                throw new IllegalArgumentException("Journal de fichier invalide à l'octet " + (buffer.position() - 1));
+            }
+            int row = buffer.getInt();
+            int col = buffer.getInt();
+            int length = buffer.getInt();
+            if (length > buffer.remaining()) {
+                break;
+            }
+            if (!spreadsheet.isInBounds(row, col)) {
+                throw new IllegalArgumentException("Coordonnées de cellule hors limites : " + row + "," + col);
+            }
+            if (length > bytes.length) {
+                bytes = new byte[Math.max(length, bytes.length * 2)];
+            }
+            buffer.get(bytes, 0, length);
+            spreadsheet.getCell(row, col).setContent(new String(bytes, 0, length, StandardCharsets.UTF_8));
+            journalEnd = buffer.position();
+        }
+        spreadsheet.endBatchDeferred();
+        spreadsheet.getSaveJournal().saved(path, bodyLength, journalEnd);
+        progress.accept(1);
+        return spreadsheet;
+    }
+
+    private static void writeValue(ChannelOutput out, CellValue value, int textIndex) throws IOException {
+        switch (value.getType()) {
+            case NUMBER:
+                out.putByte(VALUE_NUMBER);
+                out.putDouble(value.getNumberValue());
+                break;
+            case BOOLEAN:
+                out.putByte(VALUE_BOOLEAN);
+                out.putByte(value.getBooleanValue() ? 1 : 0);
+                break;
+            case ERROR:
+                out.putByte(VALUE_ERROR);
+                out.putByte(value.getErrorValue().ordinal());
+                break;
+            default:
+                out.putByte(VALUE_TEXT);
+                out.putInt(textIndex);
+                break;
+        }
+    }
+
+    private static CellValue readValue(ByteBuffer buffer, String[] strings) {
+        byte type = buffer.get();
+        switch (type) {
+            case VALUE_NUMBER:
+                return CellValue.ofNumber(buffer.getDouble());
+            case VALUE_BOOLEAN:
+                return CellValue.ofBoolean(buffer.get() != 0);
+            case VALUE_ERROR:
+                return CellValue.ofError(CellError.values()[buffer.get()]);
+            case VALUE_TEXT:
+                return CellValue.ofText(strings[buffer.getInt()]);
+            default:
+                throw new IllegalArgumentException("Type de valeur inconnu : " + type);
+        }
+    }
+}
@@ -1,37 +1,77 @@
 package excel.model;
 
-import java.io.*;
-import java.util.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CancellationException;
+import java.util.function.DoubleConsumer;
 
+/**
+ * Lecture et écriture des fichiers .e4e. Les variantes recevant un {@link DoubleConsumer} signalent l'avancement
+ * (entre 0 et 1) et s'interrompent, par une {@link CancellationException}, si le thread appelant est interrompu.
+ */
 public class SpreadsheetFileHandler {
+    private static final DoubleConsumer NO_PROGRESS = fraction -> {
+    };
+
     /**
-     * Sauvegarde la feuille de calcul dans un fichier .e4e
+     * Sauvegarde la feuille de calcul dans un fichier .e4e, au format binaire v2 avec les valeurs calculées
      *
      * @param spreadsheet Le modèle de feuille de calcul à sauvegarder
      * @param filepath Le chemin du fichier de destination
      * @throws IOException En cas d'erreur d'écriture
      */
     public static void saveSpreadsheet(SpreadsheetModel spreadsheet, String filepath) throws IOException {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filepath))) {
-            // Écrire la première ligne : nombre de lignes et colonnes
-            writer.write(spreadsheet.getRowCount() + "," + spreadsheet.getColumnCount());
-            writer.newLine();
+        saveSpreadsheet(spreadsheet, filepath, NO_PROGRESS);
+    }
 
-            // Parcourir toutes les cellules et écrire uniquement celles qui ne sont pas vides
-            for (int row = 0; row < spreadsheet.getRowCount(); row++) {
-                for (int col = 0; col < spreadsheet.getColumnCount(); col++) {
-                    Cell cell = spreadsheet.getCell(row, col);
-                    if (!cell.getContent().isEmpty()){
-                        writer.write(row + "," + col + ";" + cell.getContent());
-                        writer.newLine();
-                    }
-                }
-            }
-        }
+    public static void saveSpreadsheet(SpreadsheetModel spreadsheet, String filepath, DoubleConsumer progress)
+            throws IOException {
+        SpreadsheetBinaryFormat.write(spreadsheet, Path.of(filepath), true, progress);
     }
 
     /**
-     * Charge une feuille de calcul à partir d'un fichier .e4e
+     * Sauvegarde incrémentale : si le fichier est celui de la dernière sauvegarde binaire ou du chargement,
+     * seules les cellules modifiées depuis sont ajoutées à son journal ; sinon, ou lorsque le journal
+     * devient trop long, le fichier est réécrit en entier au format binaire v2
+     *
+     * @param spreadsheet Le modèle de feuille de calcul à sauvegarder
+     * @param filepath Le chemin du fichier de destination
+     * @throws IOException En cas d'erreur d'écriture
+     */
+    public static void saveSpreadsheetIncremental(SpreadsheetModel spreadsheet, String filepath) throws IOException {
+        saveSpreadsheetIncremental(spreadsheet, filepath, NO_PROGRESS);
+    }
+
+    public static void saveSpreadsheetIncremental(SpreadsheetModel spreadsheet, String filepath,
+                                                  DoubleConsumer progress) throws IOException {
+        SpreadsheetBinaryFormat.writeIncremental(spreadsheet, Path.of(filepath), progress);
+    }
+
+    /**
+     * Sauvegarde la feuille de calcul dans un fichier .e4e texte (une ligne {@code ligne,colonne;contenu} par cellule)
+     *
+     * @param spreadsheet Le modèle de feuille de calcul à sauvegarder
+     * @param filepath Le chemin du fichier de destination
+     * @throws IOException En cas d'erreur d'écriture
+     */
+    public static void saveSpreadsheetAsText(SpreadsheetModel spreadsheet, String filepath) throws IOException {
+        SpreadsheetTextFormat.write(spreadsheet, Path.of(filepath));
+    }
+
+    /**
+     * Vrai si le fichier est au format binaire, faux s'il est au format texte
+     *
+     * @throws IOException En cas d'erreur de lecture
+     */
+    public static boolean isBinary(String filepath) throws IOException {
+        return SpreadsheetBinaryFormat.isBinary(Path.of(filepath));
+    }
+
+    /**
+     * Charge une feuille de calcul à partir d'un fichier .e4e, binaire ou texte selon son en-tête
      *
      * @param filepath Le chemin du fichier à charger
      * @return Un nouveau modèle de feuille de calcul
@@ -39,56 +79,47 @@ public class SpreadsheetFileHandler {
      * @throws IllegalArgumentException En cas de format de fichier invalide
      */
     public static SpreadsheetModel loadSpreadsheet(String filepath) throws IOException {
-        try (BufferedReader reader = new BufferedReader(new FileReader(filepath))) {
-            // Lire la première ligne pour obtenir la taille de la feuille
-            String firstLine = reader.readLine();
-            if (firstLine == null) {
-                throw new IllegalArgumentException("Fichier vide");
-            }
-
-            // Parsing de la première ligne
-            String[] dimensions = firstLine.split(",");
-            if (dimensions.length != 2) {
-                throw new IllegalArgumentException("Format de la première ligne invalide");
-            }
-
-            int rowCount = Integer.parseInt(dimensions[0].trim());
-            int colCount = Integer.parseInt(dimensions[1].trim());
-
-            // Créer un nouveau modèle de feuille de calcul
-            SpreadsheetModel spreadsheet = new SpreadsheetModel(rowCount, colCount);
-
-            // Lire les cellules
-            String line;
-            while ((line = reader.readLine()) != null) {
-                // Parsing de chaque ligne de cellule
-                String[] cellParts = line.split(";");
-                if (cellParts.length != 2) {
-                    throw new IllegalArgumentException("Format de ligne de cellule invalide : " + line);
-                }
-
-                // Parsing des coordonnées de la cellule
-                String[] coords = cellParts[0].split(",");
-                if (coords.length != 2) {
-                    throw new IllegalArgumentException("Coordonnées de cellule invalides : " + cellParts[0]);
-                }
-
-                int row = Integer.parseInt(coords[0].trim());
-                int col = Integer.parseInt(coords[1].trim());
-                String content = cellParts[1];
+        SpreadsheetModel spreadsheet = loadSpreadsheet(filepath, NO_PROGRESS);
+        spreadsheet.recalculatePending(spreadsheet.getRecalcEngine().currentGeneration());
+        return spreadsheet;
+    }
 
-                // Vérifier les limites
-                if (row < 0 || row >= rowCount || col < 0 || col >= colCount) {
-                    throw new IllegalArgumentException("Coordonnées de cellule hors limites : " + row + "," + col);
-                }
+    /**
+     * Charge une feuille sans évaluer les formules qui n'ont pas de valeur enregistrée : le modèle peut être
+     * affiché aussitôt, son évaluation étant lancée ensuite par {@link SpreadsheetModel#recalculatePending(long)}
+     *
+     * @throws IOException En cas d'erreur de lecture
+     * @throws IllegalArgumentException En cas de format de fichier invalide
+     * @throws CancellationException Si le thread appelant est interrompu
+     */
+    public static SpreadsheetModel loadSpreadsheet(String filepath, DoubleConsumer progress) throws IOException {
+        Path path = Path.of(filepath);
+        if (SpreadsheetBinaryFormat.isBinary(path)) {
+            return SpreadsheetBinaryFormat.read(path, progress);
+        }
+        return SpreadsheetTextFormat.read(path, progress);
+    }
 
-                // Définir le contenu de la cellule
-                spreadsheet.getCell(row, col).setContent(content);
+    // Contenu complet d'un fichier, lu dans le tas : une projection (FileChannel.map) resterait active jusqu'au
+    // ramasse-miettes, et Windows refuse alors de tronquer ou de remplacer le fichier lors de la sauvegarde suivante
+    static ByteBuffer readFully(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Fichier trop volumineux : " + length + " octets");
             }
-
-            return spreadsheet;
+            ByteBuffer buffer = ByteBuffer.allocate((int) length);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                checkInterrupted();
+            }
+            return buffer.flip();
         }
     }
 
-
-}
\ No newline at end of file
+    // Point d'abandon des lectures et écritures longues, lorsque la tâche qui les porte est annulée
+    static void checkInterrupted() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Opération sur fichier annulée");
+        }
+    }
+}
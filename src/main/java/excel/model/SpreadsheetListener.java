@@ -0,0 +1,26 @@
+package excel.model;
+
+import java.util.List;
+
+/**
+ * Écouteur des changements du modèle, sans dépendance à JavaFX.
+ * Les notifications sont émises sur le thread qui a déclenché le recalcul.
+ */
+public interface SpreadsheetListener {
+    /**
+     * Cellules recalculées lors d'une passe, signalées en un seul lot à la fin de celle-ci
+     */
+    void valuesChanged(List<Cell> cells);
+
+    /**
+     * Nouveau nombre total de fonctions et de puissances dans la feuille
+     */
+    default void sumCountAndPowChanged(int total) {
+    }
+
+    /**
+     * Avancement de la passe de recalcul en cours ; evaluated == total en fin de passe
+     */
+    default void recalcProgress(int evaluated, int total) {
+    }
+}
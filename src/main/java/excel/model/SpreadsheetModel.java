@@ -1,124 +1,254 @@
 package excel.model;
 
-import javafx.beans.property.IntegerProperty;
-import javafx.beans.property.SimpleIntegerProperty;
-
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
- * Modèle principal du tableur
+ * Modèle principal du tableur, indépendant de JavaFX : les changements sont signalés
+ * aux {@link SpreadsheetListener} enregistrés
  */
 public class SpreadsheetModel {
-    private final int rowCount;
-    private final int columnCount;
-    private final Cell[][] cells;
+    private final CellStore cells;
     private final ExpressionBuilder expressionBuilder;
+    private final RecalcEngine recalcEngine;
+    private final DependencyGraph dependencyGraph;
+
+    private final List<SpreadsheetListener> listeners = new CopyOnWriteArrayList<>();
+
+    private int sumCountAndPowInSpreadheet = 0;
 
-    private IntegerProperty sumCountAndPowInSpreadheet = new SimpleIntegerProperty(0);
+    // Lot en cours : profondeur d'imbrication et cellules modifiées en attente de recalcul
+    private int batchDepth = 0;
+    private final Set<Cell> batchChanges = new LinkedHashSet<>();
+
+    private final SaveJournal saveJournal = new SaveJournal();
 
     public int getSumCountAndPowInSpreadheet() {
-        return sumCountAndPowInSpreadheet.get();
+        return sumCountAndPowInSpreadheet;
     }
 
-    public IntegerProperty sumCountAndPowInSpreadheetProperty() {
-        return sumCountAndPowInSpreadheet;
+    /**
+     * Ajuste le total des fonctions et puissances de la feuille lorsqu'une cellule change de formule
+     */
+    void adjustSumCountAndPow(int delta) {
+        if (delta != 0) {
+            sumCountAndPowInSpreadheet += delta;
+            for (SpreadsheetListener listener : listeners) {
+                listener.sumCountAndPowChanged(sumCountAndPowInSpreadheet);
+            }
+        }
     }
 
-    public void setSumCountAndPowInSpreadheet(int sumCountAndPowInSpreadheet) {
-        this.sumCountAndPowInSpreadheet.set(getSumCountAndPowInSpreadheet() + sumCountAndPowInSpreadheet);
-        System.out.println(getSumCountAndPowInSpreadheet());
+    public void addListener(SpreadsheetListener listener) {
+        listeners.add(listener);
     }
 
-    private final Map<Cell, List<Cell>> dependencies = new HashMap<>();
+    public void removeListener(SpreadsheetListener listener) {
+        listeners.remove(listener);
+    }
 
-    public SpreadsheetModel(int rowCount, int columnCount) {
-        this.rowCount = rowCount;
-        this.columnCount = columnCount;
-        this.cells = new Cell[rowCount][columnCount];
-        this.expressionBuilder = new ExpressionBuilder(this);
-
-        // Initialiser les cellules
-        for (int row = 0; row < rowCount; row++) {
-            for (int col = 0; col < columnCount; col++) {
-                cells[row][col] = new Cell(row, col, this);
-            }
+    /**
+     * Signale aux écouteurs les cellules recalculées lors d'une passe
+     */
+    void fireValuesChanged(List<Cell> cells) {
+        for (SpreadsheetListener listener : listeners) {
+            listener.valuesChanged(cells);
+        }
+    }
+
+    /**
+     * Signale l'avancement de la passe en cours : cellules évaluées sur le total à évaluer
+     */
+    void fireRecalcProgress(int evaluated, int total) {
+        for (SpreadsheetListener listener : listeners) {
+            listener.recalcProgress(evaluated, total);
         }
     }
 
+    public SpreadsheetModel(int rowCount, int columnCount) {
+        // Les cellules sont créées à la demande, lors de leur premier accès en écriture
+        this.cells = new CellStore(rowCount, columnCount);
+        this.dependencyGraph = new DependencyGraph(columnCount);
+        this.expressionBuilder = new ExpressionBuilder();
+        this.recalcEngine = new RecalcEngine(this);
+    }
+
     public int getRowCount() {
-        return rowCount;
+        return cells.getRowCount();
     }
 
     public int getColumnCount() {
-        return columnCount;
+        return cells.getColumnCount();
+    }
+
+    public boolean isInBounds(int row, int column) {
+        return cells.contains(row, column);
     }
 
+    /**
+     * Retourne la cellule, en la créant si elle n'existe pas encore (null si hors limites)
+     */
     public Cell getCell(int row, int column) {
-        if (row >= 0 && row < rowCount && column >= 0 && column < columnCount) {
-            return cells[row][column];
+        Cell cell = cells.find(row, column);
+        if (cell == null && isInBounds(row, column)) {
+            cell = cells.getOrCreate(row, column, this);
+            // Une cellule créée vaut le texte vide : les plages qui la couvrent en sont informées
+            dependencyGraph.updateRangeAggregates(row, column, CellStore.NONE, 0, CellStore.TEXT, 0);
         }
-        return null;
+        return cell;
     }
 
-    public ExpressionBuilder getExpressionBuilder() {
-        return expressionBuilder;
+    /**
+     * Retourne la cellule si elle existe déjà, sans l'allouer (null si vide ou hors limites)
+     */
+    public Cell findCell(int row, int column) {
+        return cells.find(row, column);
+    }
+
+    CellStore getCellStore() {
+        return cells;
+    }
+
+    SaveJournal getSaveJournal() {
+        return saveJournal;
     }
 
     /**
-     * Enregistre une dépendance entre cellules
+     * Vrai si des contenus ont changé depuis la dernière sauvegarde ou le dernier chargement
      */
-    public void addDependency(Cell dependentCell, Cell sourceCell) throws CircularReferenceException {
-        // Prevent adding a dependency if it would cause a cycle
-        if (hasCircularDependency(sourceCell, dependentCell)) {
-            throw new CircularReferenceException(
-                    "Circular dependency detected when adding dependency from "
-                            + dependentCell.getAddress() + " to " + sourceCell.getAddress());
+    public boolean hasUnsavedChanges() {
+        return saveJournal.hasChanges();
+    }
+
+    /**
+     * Écrit la valeur d'une cellule dans le stockage et met à jour les agrégats des plages qui la couvrent
+     */
+    void writeValue(int row, int column, CellValue value) {
+        byte oldType = cells.getType(row, column);
+        double oldNumber = cells.getNumber(row, column);
+        cells.setValue(row, column, value);
+        byte newType = cells.getType(row, column);
+        double newNumber = cells.getNumber(row, column);
+        if (oldType != newType || Double.compare(oldNumber, newNumber) != 0) {
+            dependencyGraph.updateRangeAggregates(row, column, oldType, oldNumber, newType, newNumber);
         }
-        dependencies.computeIfAbsent(sourceCell, k -> new ArrayList<>()).add(dependentCell);
     }
 
+    public ExpressionBuilder getExpressionBuilder() {
+        return expressionBuilder;
+    }
 
     /**
-     * Notifie les cellules dépendantes lorsqu'une cellule change
+     * Notifie le moteur de recalcul lorsqu'une cellule change :
+     * la cellule puis ses dépendants transitifs sont réévalués une seule fois chacun
      */
     public void notifyCellChanged(Cell cell) {
-        List<Cell> dependents = dependencies.get(cell);
-        if (dependents != null) {
-            for (Cell dependent : new ArrayList<>(dependents)) {
-                dependent.recalculate();
-            }
+        saveJournal.cellChanged(cell);
+        if (batchDepth > 0) {
+            batchChanges.add(cell);
+            return;
         }
+        recalcEngine.recalculate(cell);
     }
 
-    public boolean hasCircularDependency(Cell source, Cell dependent) {
-        return hasPath(dependent, source, new HashSet<>());
+    /**
+     * Ouvre un lot de modifications : jusqu'au {@link #endBatch()} correspondant, les changements de contenu
+     * ne sont ni analysés ni recalculés, et les écouteurs ne sont pas prévenus. Les lots peuvent s'imbriquer.
+     */
+    public void beginBatch() {
+        batchDepth++;
     }
 
-    private boolean hasPath(Cell current, Cell target, Set<Cell> visited) {
-        if (current == target) {
-            return true;
+    /**
+     * Ferme un lot ; à la fermeture du lot le plus externe, les cellules modifiées sont reconstruites,
+     * le graphe de dépendances est complété, puis un unique recalcul topologique est lancé
+     *
+     * @throws IllegalStateException si aucun lot n'est ouvert
+     */
+    public void endBatch() {
+        endBatch(recalcEngine.currentGeneration());
+    }
+
+    private void endBatch(long token) {
+        if (batchDepth == 0) {
+            throw new IllegalStateException("Aucun lot de modifications ouvert");
         }
-        if (visited.contains(current)) {
-            return false;
+        if (--batchDepth == 0 && (!batchChanges.isEmpty() || recalcEngine.hasPendingCells())) {
+            List<Cell> changed = new ArrayList<>(batchChanges);
+            batchChanges.clear();
+            recalcEngine.recalculate(changed, token);
         }
+    }
 
-        visited.add(current);
-        List<Cell> dependents = dependencies.get(current);
-        if (dependents != null) {
-            for (Cell next : dependents) {
-                if (hasPath(next, target, visited)) {
-                    return true;
-                }
-            }
+    /**
+     * Ferme le lot le plus externe en reconstruisant les cellules modifiées, mais sans les évaluer :
+     * leur évaluation est laissée à {@link #recalculatePending(long)} ou à la prochaine modification
+     *
+     * @throws IllegalStateException si aucun lot n'est ouvert
+     */
+    public void endBatchDeferred() {
+        if (batchDepth == 0) {
+            throw new IllegalStateException("Aucun lot de modifications ouvert");
+        }
+        if (--batchDepth == 0 && !batchChanges.isEmpty()) {
+            List<Cell> changed = new ArrayList<>(batchChanges);
+            batchChanges.clear();
+            recalcEngine.rebuildDeferred(changed);
         }
-        return false;
     }
+
+    /**
+     * Évalue les cellules laissées en attente (lot différé, passe abandonnée) sous le jeton donné
+     */
+    public void recalculatePending(long token) {
+        if (recalcEngine.hasPendingCells()) {
+            recalcEngine.recalculate(Collections.emptyList(), token);
+        }
+    }
+
+    /**
+     * Évalue jusqu'au bout les cellules en attente, même si une modification plus récente est demandée
+     * entre-temps : les valeurs de toutes les cellules sont alors à jour et peuvent être enregistrées
+     */
+    public void finishPendingRecalc() {
+        recalculatePending(RecalcEngine.UNCANCELLABLE);
+    }
+
+    /**
+     * Applique une modification dans un lot puis lance son recalcul sous le jeton donné
+     * (obtenu par {@link RecalcEngine#supersede()}) : si une modification plus récente a été demandée
+     * entre-temps, le recalcul est abandonné et repris par celle-ci
+     */
+    public void applyEdit(Runnable edit, long token) {
+        beginBatch();
+        try {
+            edit.run();
+        } finally {
+            endBatch(token);
+        }
+    }
+
+    public boolean isInBatch() {
+        return batchDepth > 0;
+    }
+
+    public RecalcEngine getRecalcEngine() {
+        return recalcEngine;
+    }
+
+    public DependencyGraph getDependencyGraph() {
+        return dependencyGraph;
+    }
+
     public void setCellContentSilently(int row, int col, String content) {
         Cell cell = getCell(row, col);
         if (cell != null) {
+            // Le changement de contenu déclenche le recalcul de la cellule et de ses dépendants
             cell.setContent(content);
-            cell.updateValue();
-            notifyCellChanged(cell);
         }
     }
 }
@@ -0,0 +1,240 @@
+package excel.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.DoubleConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Format texte .e4e : une première ligne {@code lignes,colonnes}, puis une ligne {@code ligne,colonne;contenu}
+ * par cellule non vide. Le contenu s'étend jusqu'à la fin de la ligne et peut contenir des ';' ou être vide.
+ * <p>
+ * À la lecture, le fichier est chargé en mémoire et découpé en tranches d'octets alignées sur les fins de ligne ;
+ * les tranches sont analysées en parallèle, puis les cellules sont insérées dans le modèle en un seul lot.
+ */
+final class SpreadsheetTextFormat {
+    // Taille minimale d'une tranche : en dessous, le découpage coûte plus qu'il ne rapporte
+    private static final int MIN_CHUNK_BYTES = 1 << 20;
+
+    /**
+     * Cellules lues dans une tranche du fichier, dans l'ordre des lignes
+     */
+    private static final class ParsedChunk {
+        int size = 0;
+        int[] rows;
+        int[] columns;
+        String[] contents;
+
+        ParsedChunk(int capacity) {
+            rows = new int[capacity];
+            columns = new int[capacity];
+            contents = new String[capacity];
+        }
+
+        void add(int row, int column, String content) {
+            if (size == rows.length) {
+                int capacity = Math.max(16, size * 2);
+                rows = Arrays.copyOf(rows, capacity);
+                columns = Arrays.copyOf(columns, capacity);
+                contents = Arrays.copyOf(contents, capacity);
+            }
+            rows[size] = row;
+            columns[size] = column;
+            contents[size] = content;
+            size++;
+        }
+    }
+
+    private SpreadsheetTextFormat() {
+    }
+
+    static void write(SpreadsheetModel spreadsheet, Path path) throws IOException {
+        List<Cell> cells = new ArrayList<>();
+        spreadsheet.getCellStore().forEach(cell -> {
+            if (!cell.getContent().isEmpty()) {
+                cells.add(cell);
+            }
+        });
+
+        Charset charset = Charset.defaultCharset();
+        String newline = System.lineSeparator();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ChannelOutput out = new ChannelOutput(channel);
+            // Première ligne : nombre de lignes et colonnes
+            out.putDecimal(spreadsheet.getRowCount());
+            out.putByte(',');
+            out.putDecimal(spreadsheet.getColumnCount());
+            out.putText(newline, charset);
+
+            // Seules les cellules existantes et non vides sont parcourues, ligne par ligne
+            for (Cell cell : cells) {
+                out.putDecimal(cell.getRow());
+                out.putByte(',');
+                out.putDecimal(cell.getColumn());
+                out.putByte(';');
+                out.putText(cell.getContent(), charset);
+                out.putText(newline, charset);
+            }
+            out.close();
+        }
+        // Un fichier texte ne sert pas de base aux sauvegardes incrémentales
+        spreadsheet.getSaveJournal().reset();
+    }
+
+    /**
+     * Lit un fichier texte ; les cellules sont affectées en un seul lot, reconstruit mais pas évalué
+     * (voir {@link SpreadsheetModel#endBatchDeferred()})
+     *
+     * @throws IllegalArgumentException En cas de format de fichier invalide
+     */
+    static SpreadsheetModel read(Path path, DoubleConsumer progress) throws IOException {
+        return read(path, progress, MIN_CHUNK_BYTES);
+    }
+
+    /**
+     * Variante dont la taille minimale des tranches est donnée, pour découper aussi un petit fichier
+     */
+    static SpreadsheetModel read(Path path, DoubleConsumer progress, int minChunkBytes) throws IOException {
+        ByteBuffer buffer = SpreadsheetFileHandler.readFully(path);
+        return read(buffer, buffer.limit(), Charset.defaultCharset(), progress, minChunkBytes);
+    }
+
+    private static SpreadsheetModel read(ByteBuffer buffer, int length, Charset charset,
+                                         DoubleConsumer progress, int minChunkBytes) {
+        // Première ligne : taille de la feuille
+        if (length == 0) {
+            throw new IllegalArgumentException("Fichier vide");
+        }
+        int headerEnd = indexOfNewline(buffer, 0, length);
+        String[] dimensions = decode(buffer, 0, headerEnd, charset).split(",");
+        if (dimensions.length != 2) {
+            throw new IllegalArgumentException("Format de la première ligne invalide");
+        }
+        int rowCount = Integer.parseInt(dimensions[0].trim());
+        int colCount = Integer.parseInt(dimensions[1].trim());
+
+        // Découpage du corps en tranches, chacune commençant au début d'une ligne
+        int bodyStart = Math.min(headerEnd + 1, length);
+        int bodyLength = length - bodyStart;
+        int chunkCount = Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism() * 4, bodyLength / minChunkBytes));
+        int[] bounds = new int[chunkCount + 1];
+        bounds[0] = bodyStart;
+        for (int i = 1; i < chunkCount; i++) {
+            int target = Math.max(bodyStart + (int) ((long) bodyLength * i / chunkCount), bounds[i - 1]);
+            bounds[i] = Math.min(indexOfNewline(buffer, target, length) + 1, length);
+        }
+        bounds[chunkCount] = length;
+
+        ParsedChunk[] chunks = IntStream.range(0, chunkCount).parallel()
+                .mapToObj(i -> parseChunk(buffer, bounds[i], bounds[i + 1], rowCount, colCount, charset))
+                .toArray(ParsedChunk[]::new);
+        SpreadsheetFileHandler.checkInterrupted();
+        progress.accept(0.5);
+
+        // Insertion en un seul lot, dans l'ordre du fichier : une cellule répétée garde son dernier contenu
+        SpreadsheetModel spreadsheet = new SpreadsheetModel(rowCount, colCount);
+        spreadsheet.beginBatch();
+        for (int c = 0; c < chunks.length; c++) {
+            ParsedChunk chunk = chunks[c];
+            for (int i = 0; i < chunk.size; i++) {
+                spreadsheet.getCell(chunk.rows[i], chunk.columns[i]).setContent(chunk.contents[i]);
+            }
+            SpreadsheetFileHandler.checkInterrupted();
+            progress.accept(0.5 + 0.5 * (c + 1) / chunks.length);
+        }
+        spreadsheet.endBatchDeferred();
+        // Un fichier texte ne peut pas recevoir de journal : la prochaine sauvegarde sera complète
+        spreadsheet.getSaveJournal().reset();
+        return spreadsheet;
+    }
+
+    private static ParsedChunk parseChunk(ByteBuffer buffer, int start, int end,
+                                          int rowCount, int colCount, Charset charset) {
+        ParsedChunk chunk = new ParsedChunk((end - start) / 16);
+        int lineStart = start;
+        while (lineStart < end) {
+            int newline = indexOfNewline(buffer, lineStart, end);
+            int lineEnd = newline > lineStart && buffer.get(newline - 1) == '\r' ? newline - 1 : newline;
+
+            // Le contenu commence après le premier ';' de la ligne
+            int separator = indexOf(buffer, (byte) ';', lineStart, lineEnd);
+            if (separator < 0) {
+                throw new IllegalArgumentException("Format de ligne de cellule invalide : "
+                        + decode(buffer, lineStart, lineEnd, charset));
+            }
+            int comma = indexOf(buffer, (byte) ',', lineStart, separator);
+            int row = comma < 0 ? -1 : parseCoordinate(buffer, lineStart, comma);
+            int col = comma < 0 ? -1 : parseCoordinate(buffer, comma + 1, separator);
+            if (row == Integer.MIN_VALUE || col == Integer.MIN_VALUE || comma < 0) {
+                throw new IllegalArgumentException("Coordonnées de cellule invalides : "
+                        + decode(buffer, lineStart, separator, charset));
+            }
+            if (row < 0 || row >= rowCount || col < 0 || col >= colCount) {
+                throw new IllegalArgumentException("Coordonnées de cellule hors limites : " + row + "," + col);
+            }
+
+            chunk.add(row, col, decode(buffer, separator + 1, lineEnd, charset));
+            lineStart = newline + 1;
+        }
+        return chunk;
+    }
+
+    // Entier signé entouré d'espaces, ou Integer.MIN_VALUE s'il est mal formé
+    private static int parseCoordinate(ByteBuffer buffer, int start, int end) {
+        while (start < end && buffer.get(start) <= ' ') {
+            start++;
+        }
+        while (end > start && buffer.get(end - 1) <= ' ') {
+            end--;
+        }
+        boolean negative = start < end && buffer.get(start) == '-';
+        if (negative) {
+            start++;
+        }
+        if (start == end || end - start > 9) {
+            return Integer.MIN_VALUE;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b < '0' || b > '9') {
+                return Integer.MIN_VALUE;
+            }
+            value = value * 10 + (b - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    // Position du prochain '\n' à partir de start, ou end s'il n'y en a plus
+    private static int indexOfNewline(ByteBuffer buffer, int start, int end) {
+        int i = indexOf(buffer, (byte) '\n', start, end);
+        return i < 0 ? end : i;
+    }
+
+    private static int indexOf(ByteBuffer buffer, byte b, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (buffer.get(i) == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String decode(ByteBuffer buffer, int start, int end, Charset charset) {
+        if (start >= end) {
+            return "";
+        }
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, charset);
+    }
+}
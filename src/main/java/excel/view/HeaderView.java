@@ -2,8 +2,11 @@ package excel.view;
 
 import excel.tools.ExcelConverter;
 import excel.viewmodel.SpreadsheetViewModel;
+import javafx.concurrent.Task;
 import javafx.geometry.Insets;
+import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
@@ -37,11 +40,36 @@ public class HeaderView extends VBox {
             }
         });
 
+        // Barre de progression du recalcul en arrière-plan, visible seulement pendant une passe
+        ProgressBar recalcProgress = new ProgressBar();
+        recalcProgress.progressProperty().bind(viewModel.recalcProgressProperty());
+        recalcProgress.visibleProperty().bind(viewModel.recalcProgressProperty().lessThan(1));
+
+        // Progression et annulation du chargement ou de la sauvegarde en cours
+        ProgressBar fileProgress = new ProgressBar();
+        Button cancelFileTask = new Button("Annuler");
+        cancelFileTask.setOnAction(event -> viewModel.cancelFileTask());
+        HBox fileTaskBar = new HBox(10, fileProgress, cancelFileTask);
+        fileTaskBar.setVisible(false);
+        fileTaskBar.managedProperty().bind(fileTaskBar.visibleProperty());
+        viewModel.fileTaskProperty().addListener((obs, oldTask, task) -> showFileTask(task, fileProgress, fileTaskBar));
+
         // Créer un layout horizontal pour l'éditeur de cellule
         HBox editorBar = new HBox(10);
-        editorBar.getChildren().addAll(cellAddressLabel, cellContentEditor);
+        editorBar.getChildren().addAll(cellAddressLabel, cellContentEditor, recalcProgress, fileTaskBar);
 
         // Ajouter à la vue
         this.getChildren().add(editorBar);
     }
-}
\ No newline at end of file
+
+    private static void showFileTask(Task<?> task, ProgressBar fileProgress, HBox fileTaskBar) {
+        fileProgress.progressProperty().unbind();
+        fileTaskBar.visibleProperty().unbind();
+        if (task != null) {
+            fileProgress.progressProperty().bind(task.progressProperty());
+            fileTaskBar.visibleProperty().bind(task.runningProperty());
+        } else {
+            fileTaskBar.setVisible(false);
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package excel.view;
+
+import excel.viewmodel.SpreadsheetViewModel;
+import javafx.beans.InvalidationListener;
+import javafx.beans.property.StringProperty;
+import javafx.beans.value.ChangeListener;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import org.controlsfx.control.spreadsheet.SpreadsheetCell;
+import org.controlsfx.control.spreadsheet.SpreadsheetCellType;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.IntPredicate;
+
+/**
+ * Lignes de la grille virtualisées : une ligne n'est qu'un indice, et une {@link SpreadsheetCell} n'est créée
+ * et liée au ViewModel qu'au premier accès de la vue (cellules visibles et leur voisinage de défilement).
+ * Les liaisons sont tenues dans une fenêtre LRU : au-delà de sa capacité, les plus anciennes sont détachées
+ * et leur cellule libérée, puis recréée si la vue y revient. La mémoire ne dépend donc pas de la taille de la feuille.
+ * Les cellules des lignes affichées ne sont jamais détachées : la vue les garde sans les redemander,
+ * elles cesseraient d'être mises à jour.
+ * <p>
+ * Au changement de modèle, les lignes et les cellules créées sont conservées et rattachées aux propriétés
+ * du nouveau modèle ({@link #rebind(int, int)}) : seules celles qui sortent des nouvelles dimensions sont abandonnées.
+ */
+final class LazyGridRows {
+    static final int DEFAULT_CAPACITY = 4096;
+
+    // Élément rendu par le parcours d'une ligne pour une cellule pas encore créée (lecture des fusions seulement)
+    private static final SpreadsheetCell PLACEHOLDER = SpreadsheetCellType.STRING.createCell(0, 0, 1, 1, "");
+
+    /**
+     * Liaison d'une cellule matérialisée avec la propriété d'affichage du ViewModel
+     */
+    private static final class Binding {
+        final LazyRow row;
+        final int column;
+        final StringProperty value;
+        final ChangeListener<String> listener;
+
+        Binding(LazyRow row, int column, StringProperty value, ChangeListener<String> listener) {
+            this.row = row;
+            this.column = column;
+            this.value = value;
+            this.listener = listener;
+        }
+    }
+
+    private final SpreadsheetViewModel viewModel;
+    private int columnCount;
+    private final List<ObservableList<SpreadsheetCell>> rows;
+    private final Map<Long, Binding> bindings;
+    private final int capacity;
+    private IntPredicate rowOnScreen = row -> false;
+    private boolean updatingCellFromViewModel = false; // empêche d'update le contenu de la cellule lorsque l'on set display value
+
+    LazyGridRows(SpreadsheetViewModel viewModel, int rowCount, int columnCount, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacité de la fenêtre de liaisons invalide: " + capacity);
+        }
+        this.viewModel = viewModel;
+        this.columnCount = columnCount;
+        this.rows = new ArrayList<>(rowCount);
+        for (int row = 0; row < rowCount; row++) {
+            rows.add(new LazyRow(row));
+        }
+        this.bindings = new LinkedHashMap<>(16, 0.75f, true);
+        this.capacity = capacity;
+    }
+
+    /**
+     * Indique quelles lignes la vue affiche : leurs liaisons sont épargnées par la fenêtre LRU,
+     * quitte à en dépasser la capacité le temps qu'elles soient affichées
+     */
+    void setRowOnScreen(IntPredicate rowOnScreen) {
+        this.rowOnScreen = rowOnScreen;
+    }
+
+    List<ObservableList<SpreadsheetCell>> getRows() {
+        return rows;
+    }
+
+    /**
+     * Nombre de cellules actuellement créées et liées
+     */
+    int getBoundCount() {
+        return bindings.size();
+    }
+
+    /**
+     * Rattache les cellules créées au modèle courant du ViewModel, de dimensions rowCount x columnCount :
+     * chacune quitte la propriété de l'ancien modèle pour celle du nouveau et affiche sa valeur.
+     * Les lignes sont réutilisées, ajoutées ou retirées selon la nouvelle taille.
+     *
+     * @return vrai si les dimensions ont changé, auquel cas la grille doit être réinstallée
+     */
+    boolean rebind(int rowCount, int columnCount) {
+        boolean resized = rowCount != rows.size() || columnCount != this.columnCount;
+
+        // Détacher toutes les liaisons de l'ancien modèle, dans l'ordre LRU, en gardant celles encore dans les limites
+        List<Binding> kept = new ArrayList<>(bindings.size());
+        for (Binding binding : bindings.values()) {
+            binding.value.removeListener(binding.listener);
+            if (binding.row.index < rowCount && binding.column < columnCount) {
+                kept.add(binding);
+            } else {
+                binding.row.cells[binding.column] = null;
+            }
+        }
+        bindings.clear();
+
+        if (rowCount < rows.size()) {
+            rows.subList(rowCount, rows.size()).clear();
+        }
+        if (columnCount != this.columnCount) {
+            for (ObservableList<SpreadsheetCell> row : rows) {
+                LazyRow lazyRow = (LazyRow) row;
+                if (lazyRow.cells != null) {
+                    lazyRow.cells = Arrays.copyOf(lazyRow.cells, columnCount);
+                }
+            }
+            this.columnCount = columnCount;
+        }
+        for (int row = rows.size(); row < rowCount; row++) {
+            rows.add(new LazyRow(row));
+        }
+
+        for (Binding binding : kept) {
+            StringProperty value = viewModel.getCellValueProperty(binding.row.index, binding.column);
+            show(binding.row.cells[binding.column], value.get());
+            value.addListener(binding.listener);
+            bindings.put(key(binding.row.index, binding.column),
+                    new Binding(binding.row, binding.column, value, binding.listener));
+        }
+        return resized;
+    }
+
+    private SpreadsheetCell materialize(LazyRow lazyRow, int column) {
+        // Avant l'insertion, pour ne jamais détacher la cellule que la vue est en train de demander
+        evict();
+        int row = lazyRow.index;
+        StringProperty value = viewModel.getCellValueProperty(row, column);
+        SpreadsheetCell cell = SpreadsheetCellType.STRING.createCell(row, column, 1, 1, value.get());
+
+        // Lier la modification de cellule dans la vue au ViewModel
+        cell.itemProperty().addListener((observableValue, oldVal, newVal) -> {
+            if (!Objects.equals(oldVal, newVal) && newVal != null && !updatingCellFromViewModel) {
+                viewModel.updateCellContent(row, column, (String) newVal);
+            }
+        });
+
+        // Lier les modifications du ViewModel à la vue
+        ChangeListener<String> listener = (observableValue, oldVal, newVal) -> show(cell, newVal);
+        value.addListener(listener);
+        bindings.put(key(row, column), new Binding(lazyRow, column, value, listener));
+        return cell;
+    }
+
+    private void show(SpreadsheetCell cell, String value) {
+        if (!Objects.equals(cell.getItem(), value)) {
+            updatingCellFromViewModel = true;
+            cell.setItem(value);
+            updatingCellFromViewModel = false;
+        }
+    }
+
+    // Détache, des plus anciennes aux plus récentes, les liaisons hors des lignes affichées jusqu'à libérer une place
+    private void evict() {
+        Iterator<Binding> iterator = bindings.values().iterator();
+        while (bindings.size() >= capacity && iterator.hasNext()) {
+            Binding binding = iterator.next();
+            if (!rowOnScreen.test(binding.row.index)) {
+                iterator.remove();
+                unbind(binding);
+            }
+        }
+    }
+
+    private void unbind(Binding binding) {
+        binding.value.removeListener(binding.listener);
+        binding.row.cells[binding.column] = null;
+        viewModel.releaseCellValueProperty(binding.row.index, binding.column);
+    }
+
+    private long key(int row, int column) {
+        return (long) row * columnCount + column;
+    }
+
+    /**
+     * Ligne de taille fixe : la structure ne change jamais, aucun événement de liste n'est donc émis
+     * et les écouteurs ne sont pas conservés
+     */
+    private final class LazyRow extends AbstractList<SpreadsheetCell> implements ObservableList<SpreadsheetCell> {
+        final int index;
+        SpreadsheetCell[] cells; // alloué au premier accès à une cellule de la ligne
+
+        LazyRow(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public SpreadsheetCell get(int column) {
+            Objects.checkIndex(column, columnCount);
+            if (cells == null) {
+                cells = new SpreadsheetCell[columnCount];
+            }
+            SpreadsheetCell cell = cells[column];
+            if (cell == null) {
+                cell = materialize(this, column);
+                cells[column] = cell;
+            } else {
+                // Accès récent : la liaison remonte dans la fenêtre LRU
+                bindings.get(key(index, column));
+            }
+            return cell;
+        }
+
+        @Override
+        public int size() {
+            return columnCount;
+        }
+
+        // Le parcours (recherche des fusions de cellules par la vue) ne matérialise rien
+        @Override
+        public Iterator<SpreadsheetCell> iterator() {
+            return new Iterator<>() {
+                private int column = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return column < columnCount;
+                }
+
+                @Override
+                public SpreadsheetCell next() {
+                    if (column >= columnCount) {
+                        throw new NoSuchElementException();
+                    }
+                    SpreadsheetCell cell = cells != null ? cells[column] : null;
+                    column++;
+                    return cell != null ? cell : PLACEHOLDER;
+                }
+            };
+        }
+
+        // Une ligne n'est égale qu'à elle-même : deux lignes vides ne doivent pas se confondre
+        @Override
+        public boolean equals(Object o) {
+            return this == o;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this);
+        }
+
+        @Override
+        public void addListener(ListChangeListener<? super SpreadsheetCell> listener) {
+        }
+
+        @Override
+        public void removeListener(ListChangeListener<? super SpreadsheetCell> listener) {
+        }
+
+        @Override
+        public void addListener(InvalidationListener listener) {
+        }
+
+        @Override
+        public void removeListener(InvalidationListener listener) {
+        }
+
+        @Override
+        public boolean addAll(SpreadsheetCell... elements) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean setAll(SpreadsheetCell... elements) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean setAll(Collection<? extends SpreadsheetCell> col) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean removeAll(SpreadsheetCell... elements) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean retainAll(SpreadsheetCell... elements) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void remove(int from, int to) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package excel.view;
 
 import excel.viewmodel.SpreadsheetViewModel;
+import javafx.concurrent.Task;
+import javafx.concurrent.WorkerStateEvent;
 import javafx.scene.control.*;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyCodeCombination;
@@ -13,7 +15,6 @@ import excel.model.SpreadsheetFileHandler;
 import javafx.scene.control.Alert;
 
 import java.io.File;
-import java.io.IOException;
 import java.util.Objects;
 
 public class MainView extends BorderPane {
@@ -25,17 +26,11 @@ public class MainView extends BorderPane {
     public MainView(SpreadsheetViewModel viewModel, Stage stage) {
         // Create the menu bar
         menuBar = createMenuBar(viewModel, stage);
-        reloadSpreadsheetView(viewModel);
 
-    }
-
-    private void reloadSpreadsheetView(SpreadsheetViewModel viewModel) {
         // Spreadsheet view
-        this.spreadsheetView = new MySpreadsheetView(viewModel); // Initialize here
+        this.spreadsheetView = new MySpreadsheetView(viewModel);
         this.setCenter(spreadsheetView);
 
-        this.spreadsheetView.updateGride();
-
         // Header with cell editor
         this.headerView = new HeaderView(viewModel);
 
@@ -46,6 +41,14 @@ public class MainView extends BorderPane {
         //pour garantir que le panneau reçoit les événements clavier
         this.setFocusTraversable(true);
 
+        this.setBottom(createFooter(viewModel));
+
+        // Un fichier chargé remplace le modèle : la grille existante est rattachée au nouveau, sans être reconstruite
+        viewModel.modelProperty().addListener((observable, oldModel, newModel) -> spreadsheetView.rebind());
+    }
+
+    // Le total suit la propriété du ViewModel, qui reste la même d'un modèle à l'autre
+    private Label createFooter(SpreadsheetViewModel viewModel) {
         Label footerLabel = new Label("la somme total des fonction SUM & Puissance est : " + viewModel.updateSumAndPower());
         viewModel.sumAndPow().addListener((observable, oldValue, newValue) -> {
             if (!Objects.equals(oldValue, newValue)) {
@@ -58,7 +61,7 @@ public class MainView extends BorderPane {
                 }
             }
         });
-        this.setBottom(footerLabel);
+        return footerLabel;
     }
     private MenuBar createMenuBar(SpreadsheetViewModel viewModel, Stage stage) {
         MenuBar menuBar = new MenuBar();
@@ -66,10 +69,12 @@ public class MainView extends BorderPane {
         // File Menu
         Menu fileMenu = new Menu("File");
         MenuItem saveItem = new MenuItem("Save");
+        MenuItem saveAsItem = new MenuItem("Save As");
         MenuItem openItem = new MenuItem("Open");
         saveItem.setAccelerator(new KeyCodeCombination(KeyCode.S, KeyCombination.CONTROL_DOWN));
+        saveAsItem.setAccelerator(new KeyCodeCombination(KeyCode.S, KeyCombination.CONTROL_DOWN, KeyCombination.SHIFT_DOWN));
         openItem.setAccelerator(new KeyCodeCombination(KeyCode.N, KeyCombination.CONTROL_DOWN));
-        fileMenu.getItems().addAll(openItem, saveItem);
+        fileMenu.getItems().addAll(openItem, saveItem, saveAsItem);
 
         // Edit Menu (Placeholder)
         Menu editMenu = new Menu("Edit");
@@ -95,19 +100,14 @@ public class MainView extends BorderPane {
                     event.consume();
                 }
                 else if (event.getCode() == KeyCode.S) {
-                    try {
-                        viewModel.handleSave(stage);
-                    } catch (IOException e) {
-                        showErrorDialog("Save Error", "Could not save file: " + e.getMessage(), stage);
-                    };
+                    if (event.isShiftDown()) {
+                        reportFailure(viewModel.handleSaveAs(stage), "Save Error", "Could not save file: ", stage);
+                    } else {
+                        reportFailure(viewModel.handleSave(stage), "Save Error", "Could not save file: ", stage);
+                    }
                     event.consume();
                 } else if (event.getCode() == KeyCode.N) {
-                    try {
-                        viewModel.handleOpen(stage);
-                        reloadSpreadsheetView(viewModel);
-                    } catch (IOException e) {
-                        showErrorDialog("Load Error", "Could not load file: " + e.getMessage(), stage);
-                    }
+                    reportFailure(viewModel.handleOpen(stage), "Load Error", "Could not load file: ", stage);
                     event.consume();
                 }
             }
@@ -119,27 +119,24 @@ public class MainView extends BorderPane {
 
 
         // Set actions for Save and Open
-        saveItem.setOnAction(event ->{
-        try {
-            viewModel.handleSave(stage);
-        } catch (IOException e) {
-            showErrorDialog("Save Error", "Could not save file: " + e.getMessage(), stage);
-                }
-        } );
-
-
-        openItem.setOnAction(event -> {
-            try {
-                viewModel.handleOpen(stage);
-                reloadSpreadsheetView(viewModel);
-            } catch (IOException e) {
-                showErrorDialog("Load Error", "Could not load file: " + e.getMessage(), stage);
-            }
-        } );
+        saveItem.setOnAction(event ->
+                reportFailure(viewModel.handleSave(stage), "Save Error", "Could not save file: ", stage));
+        saveAsItem.setOnAction(event ->
+                reportFailure(viewModel.handleSaveAs(stage), "Save Error", "Could not save file: ", stage));
+        openItem.setOnAction(event ->
+                reportFailure(viewModel.handleOpen(stage), "Load Error", "Could not load file: ", stage));
 
         return menuBar;
     }
 
+    // Les tâches de fichier s'exécutent en arrière-plan : leur échec est signalé à leur fin (une annulation ne l'est pas)
+    private void reportFailure(Task<?> task, String title, String message, Stage stage) {
+        if (task != null) {
+            task.addEventHandler(WorkerStateEvent.WORKER_STATE_FAILED,
+                    event -> showErrorDialog(title, message + task.getException().getMessage(), stage));
+        }
+    }
+
 
     private void showErrorDialog(String title, String message, Stage stage) {
         Alert alert = new Alert(Alert.AlertType.ERROR);
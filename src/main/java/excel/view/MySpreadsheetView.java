@@ -1,31 +1,35 @@
 package excel.view;
 
 import excel.viewmodel.SpreadsheetViewModel;
-import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
-import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
+import javafx.scene.Node;
+import javafx.scene.control.IndexedCell;
 import javafx.scene.control.TablePosition;
+import javafx.scene.control.skin.VirtualFlow;
 import javafx.scene.input.KeyCode;
 import org.controlsfx.control.spreadsheet.GridBase;
-import org.controlsfx.control.spreadsheet.SpreadsheetCell;
-import org.controlsfx.control.spreadsheet.SpreadsheetCellType;
 import org.controlsfx.control.spreadsheet.SpreadsheetView;
 
-import java.util.Objects;
-
 public class MySpreadsheetView extends SpreadsheetView {
     private final SpreadsheetViewModel viewModel;
     private static final int CELL_PREF_WIDTH = 150;
     private final GridBase grid;
-    private boolean updatingCellFromViewModel = false; // empêche d'update le contenu de la cellule lorsque l'on set display value
+    // Seules les cellules demandées par la vue (zone visible et défilement proche) sont créées et liées
+    private final LazyGridRows gridRows;
+    // Défilement des lignes de la grille, trouvé une fois la vue affichée
+    private VirtualFlow<?> flow;
 
     public MySpreadsheetView(SpreadsheetViewModel viewModel) {
         this.viewModel = viewModel;
         this.setPadding(new Insets(0, 20, 20, 20));
 
-        this.grid = createGridAndBindings();
+        this.gridRows = new LazyGridRows(viewModel, viewModel.getRowCount(), viewModel.getColumnCount(),
+                LazyGridRows.DEFAULT_CAPACITY);
+        this.grid = new GridBase(viewModel.getRowCount(), viewModel.getColumnCount());
+        this.grid.setRows(gridRows.getRows());
         this.setGrid(this.grid);
+        this.gridRows.setRowOnScreen(this::isRowOnScreen);
 
         // Configurer l'édition
         this.setEditable(true);
@@ -58,67 +62,44 @@ public class MySpreadsheetView extends SpreadsheetView {
         layoutSpreadSheet();
     }
 
-    public void updateGride(){
-        GridBase grid = createGridAndBindings();
-
-        this.setGrid(grid);
-        for (int row = 0; row < grid.getRowCount(); row++) {
-            ObservableList<SpreadsheetCell> rowCells = grid.getRows().get(row);
-
-            // Parcourir toutes les cellules de la ligne
-            for (int column = 0; column < rowCells.size(); column++) {
-                SpreadsheetCell cell = rowCells.get(column);
-                String currentValue = viewModel.getCellValueProperty(row, column).getValue();
+    /**
+     * Rattache la vue au modèle courant du ViewModel (fichier chargé) : les cellules déjà créées sont conservées
+     * et reliées au nouveau modèle ; la grille n'est réinstallée que si ses dimensions changent
+     */
+    public void rebind() {
+        if (gridRows.rebind(viewModel.getRowCount(), viewModel.getColumnCount())) {
+            grid.setRows(gridRows.getRows());
+            this.setGrid(grid);
+            layoutSpreadSheet();
+        }
+    }
 
-                // Rafraîchir l'affichage de la cellule si nécessaire
-                if (!Objects.equals(cell.getItem(), currentValue)) {
-                    updatingCellFromViewModel = true;
-                    cell.setItem(currentValue);
-                    updatingCellFromViewModel = false;
-                }
+    /**
+     * Vrai si la ligne (indice du modèle) est affichée, fixée en haut de la grille ou dans la zone défilante
+     */
+    private boolean isRowOnScreen(int row) {
+        if (getFixedRows().contains(row)) {
+            return true;
+        }
+        if (flow == null || flow.getScene() == null) {
+            Node node = lookup(".virtual-flow");
+            if (!(node instanceof VirtualFlow)) {
+                return false;
             }
+            flow = (VirtualFlow<?>) node;
+        }
+        IndexedCell<?> first = flow.getFirstVisibleCell();
+        IndexedCell<?> last = flow.getLastVisibleCell();
+        if (first == null || last == null) {
+            return false;
         }
+        int viewRow = getViewRow(row);
+        return viewRow >= first.getIndex() && viewRow <= last.getIndex();
     }
+
     private void layoutSpreadSheet() {
         for (int column = 0; column < grid.getColumnCount(); column++) {
             this.getColumns().get(column).setPrefWidth(CELL_PREF_WIDTH);
         }
     }
-
-    private GridBase createGridAndBindings() {
-        GridBase grid = new GridBase(viewModel.getRowCount(), viewModel.getColumnCount());
-
-        ObservableList<ObservableList<SpreadsheetCell>> rows = FXCollections.observableArrayList();
-
-        for (int row = 0; row < grid.getRowCount(); ++row) {
-            final ObservableList<SpreadsheetCell> list = FXCollections.observableArrayList();
-            for (int column = 0; column < grid.getColumnCount(); ++column) {
-                SpreadsheetCell cell = SpreadsheetCellType.STRING.createCell(row, column, 1, 1, "");
-
-                int finalRow = row;
-                int finalColumn = column;
-
-                // Lier la modification de cellule dans la vue au ViewModel
-                cell.itemProperty().addListener((observableValue, oldVal, newVal) -> {
-                    if (!Objects.equals(oldVal, newVal) && newVal != null && !updatingCellFromViewModel) {
-                        viewModel.updateCellContent(finalRow, finalColumn, (String) newVal);
-                    }
-                });
-
-                // Lier les modifications du ViewModel à la vue
-                viewModel.getCellValueProperty(finalRow, finalColumn).addListener((observableValue, oldVal, newVal) -> {
-                    if (!Objects.equals(oldVal, newVal) && !Objects.equals(cell.getItem(), newVal)) {
-                        updatingCellFromViewModel = true;
-                        cell.setItem(newVal);
-                        updatingCellFromViewModel = false;
-                    }
-                });
-
-                list.add(cell);
-            }
-            rows.add(list);
-        }
-        grid.setRows(rows);
-        return grid;
-    }
-}
\ No newline at end of file
+}
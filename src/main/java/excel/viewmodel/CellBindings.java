@@ -0,0 +1,168 @@
+package excel.viewmodel;
+
+import excel.model.Cell;
+import excel.model.SpreadsheetListener;
+import excel.model.SpreadsheetModel;
+import javafx.application.Platform;
+import javafx.beans.property.DoubleProperty;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.StringProperty;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Adaptateur JavaFX du modèle : une propriété d'affichage n'est créée que pour
+ * les cellules effectivement liées à la vue, et mise à jour à partir des événements du modèle.
+ * <p>
+ * Les événements ne touchent pas directement les propriétés : la valeur affichée des cellules liées qui ont changé
+ * est relevée sur le thread de recalcul, seul à écrire dans le modèle, puis rassemblée dans une table vidée par
+ * une seule tâche {@link Platform#runLater} tant qu'elle n'a pas été exécutée. Une cascade de recalculs ne coûte
+ * donc qu'une mise à jour par cellule affichée, avec sa valeur finale : les valeurs intermédiaires ne sont jamais rendues.
+ */
+public class CellBindings implements SpreadsheetListener {
+    private final SpreadsheetModel model;
+    // Lue depuis le thread de recalcul pour filtrer les cellules liées ; modifiée sur le thread JavaFX
+    private final Map<Long, StringProperty> displayValues = new ConcurrentHashMap<>();
+    private final IntegerProperty sumCountAndPow;
+    private final DoubleProperty recalcProgress = new SimpleDoubleProperty(1);
+
+    // Changements en attente du prochain rafraîchissement
+    private final Map<Long, String> pendingValues = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingSumCountAndPow = new AtomicInteger();
+    // Cellules évaluées (32 bits de poids fort) et total de la passe en cours
+    private final AtomicLong pendingProgress = new AtomicLong(-1);
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    // Thread des rafraîchissements : le thread JavaFX, ou un exécuteur manuel dans les tests
+    private final Executor uiThread;
+    private volatile boolean disposed = false;
+
+    public CellBindings(SpreadsheetModel model) {
+        this(model, Platform::runLater);
+    }
+
+    CellBindings(SpreadsheetModel model, Executor uiThread) {
+        this.model = model;
+        this.uiThread = uiThread;
+        this.sumCountAndPow = new SimpleIntegerProperty(model.getSumCountAndPowInSpreadheet());
+        this.pendingSumCountAndPow.set(model.getSumCountAndPowInSpreadheet());
+        model.addListener(this);
+    }
+
+    /**
+     * Propriété de la valeur affichée d'une cellule, créée au premier accès
+     */
+    public StringProperty displayValueProperty(int row, int column) {
+        return displayValues.computeIfAbsent(key(row, column),
+                k -> new SimpleStringProperty(currentDisplayValue(row, column)));
+    }
+
+    /**
+     * Oublie la propriété d'une cellule qui n'est plus affichée ; elle sera recréée au prochain accès
+     */
+    public void release(int row, int column) {
+        displayValues.remove(key(row, column));
+    }
+
+    /**
+     * Nombre de propriétés d'affichage actuellement tenues
+     */
+    public int size() {
+        return displayValues.size();
+    }
+
+    public IntegerProperty sumCountAndPowProperty() {
+        return sumCountAndPow;
+    }
+
+    /**
+     * Avancement du recalcul en cours, entre 0 et 1 ; vaut 1 lorsqu'aucune passe n'est en cours
+     */
+    public DoubleProperty recalcProgressProperty() {
+        return recalcProgress;
+    }
+
+    /**
+     * Détache l'adaptateur du modèle (changement de modèle)
+     */
+    public void dispose() {
+        disposed = true;
+        model.removeListener(this);
+        displayValues.clear();
+        pendingValues.clear();
+    }
+
+    @Override
+    public void valuesChanged(List<Cell> cells) {
+        boolean changed = false;
+        for (Cell cell : cells) {
+            long key = key(cell.getRow(), cell.getColumn());
+            if (displayValues.containsKey(key)) {
+                pendingValues.put(key, cell.getDisplayValue());
+                changed = true;
+            }
+        }
+        if (changed) {
+            scheduleFlush();
+        }
+    }
+
+    @Override
+    public void recalcProgress(int evaluated, int total) {
+        pendingProgress.set((long) evaluated << 32 | total);
+        scheduleFlush();
+    }
+
+    @Override
+    public void sumCountAndPowChanged(int total) {
+        pendingSumCountAndPow.set(total);
+        scheduleFlush();
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            uiThread.execute(this::flush);
+        }
+    }
+
+    /**
+     * Applique les changements accumulés, sur le thread JavaFX ; chaque cellule prend la dernière valeur relevée
+     */
+    private void flush() {
+        flushScheduled.set(false);
+        if (disposed) {
+            return;
+        }
+        sumCountAndPow.set(pendingSumCountAndPow.get());
+        long progress = pendingProgress.get();
+        if (progress >= 0) {
+            int evaluated = (int) (progress >>> 32);
+            int total = (int) progress;
+            recalcProgress.set(total == 0 ? 1 : (double) evaluated / total);
+        }
+        for (Long key : pendingValues.keySet()) {
+            String value = pendingValues.remove(key);
+            StringProperty property = displayValues.get(key);
+            if (value != null && property != null) {
+                property.set(value);
+            }
+        }
+    }
+
+    private String currentDisplayValue(int row, int column) {
+        Cell cell = model.findCell(row, column);
+        return cell != null ? cell.getDisplayValue() : "";
+    }
+
+    private long key(int row, int column) {
+        return (long) row * model.getColumnCount() + column;
+    }
+}
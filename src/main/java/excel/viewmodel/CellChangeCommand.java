@@ -3,23 +3,28 @@ package excel.viewmodel;
 import excel.model.Cell;
 import excel.model.SpreadsheetModel;
 
+/**
+ * Changement du contenu d'une cellule. L'ancien contenu est relevé à l'exécution, sur le thread
+ * qui modifie le modèle : une édition encore en attente de ce thread n'est donc pas manquée.
+ */
 public class CellChangeCommand implements Command {
     private final SpreadsheetModel model;
     private final int row;
     private final int col;
-    private final String oldContent;
+    private String oldContent = "";
     private final String newContent;
 
-    public CellChangeCommand(SpreadsheetModel model, int row, int col, String oldContent, String newContent) {
+    public CellChangeCommand(SpreadsheetModel model, int row, int col, String newContent) {
         this.model = model;
         this.row = row;
         this.col = col;
-        this.oldContent = oldContent;
         this.newContent = newContent;
     }
 
     @Override
     public void execute() {
+        Cell cell = model.findCell(row, col);
+        oldContent = cell != null ? cell.getContent() : "";
         model.setCellContentSilently(row, col, newContent);
     }
 
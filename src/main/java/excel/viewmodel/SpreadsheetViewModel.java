@@ -9,17 +9,28 @@ import excel.model.SpreadsheetModel;
 import javafx.beans.property.*;
 import java.util.ArrayDeque;
 import java.util.Deque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 
 import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
+import javafx.concurrent.WorkerStateEvent;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
 /**
- * ViewModel pour le tableur
+ * ViewModel pour le tableur.
+ * <p>
+ * Le modèle n'est modifié que par un thread dédié : les éditions y sont appliquées dans l'ordre et recalculées
+ * hors du thread JavaFX. Une édition plus récente interrompt la passe en cours, qu'elle reprend avec la sienne.
+ * Les sauvegardes sont des tâches de ce même thread ; les chargements s'exécutent sur un thread à part
+ * et le nouveau modèle n'est installé, d'un bloc, qu'une fois lu.
  */
 public class SpreadsheetViewModel {
     private final Deque<Command> undoStack = new ArrayDeque<>();
@@ -28,9 +39,24 @@ public class SpreadsheetViewModel {
     private final BooleanProperty canRedo = new SimpleBooleanProperty(false);
 
     private SpreadsheetModel model;
+    private final ReadOnlyObjectWrapper<SpreadsheetModel> currentModel = new ReadOnlyObjectWrapper<>();
+    private CellBindings bindings;
+    // Fichier ouvert ou enregistré en dernier, cible des sauvegardes rapides
+    private String currentFilePath;
+    // Format de ce fichier : un fichier texte ouvert reste au format texte, sauf en « Save As »
+    private boolean currentFileText;
     private final StringProperty editBarContent = new SimpleStringProperty("");
     private final ObjectProperty<int[]> selectedCell = new SimpleObjectProperty<>();
     private final SimpleBooleanProperty editableProperty = new SimpleBooleanProperty(true);
+    // Propriétés stables pour la vue, liées à celles de l'adaptateur du modèle courant
+    private final DoubleProperty recalcProgress = new SimpleDoubleProperty(1);
+    private final IntegerProperty sumCountAndPow = new SimpleIntegerProperty();
+
+    // Thread unique de modification du modèle, et thread de chargement des fichiers
+    private final ExecutorService modelExecutor = Executors.newSingleThreadExecutor(daemon("recalcul"));
+    private final ExecutorService loadExecutor = Executors.newSingleThreadExecutor(daemon("chargement"));
+    private final ReadOnlyObjectWrapper<Task<?>> fileTask = new ReadOnlyObjectWrapper<>();
+    private Task<SpreadsheetModel> currentLoad;
 
     // Pour le journal d'actions (peut être utile pour le débogage)
     private final ObservableList<String> actions = FXCollections.observableArrayList();
@@ -38,11 +64,15 @@ public class SpreadsheetViewModel {
 
     public SpreadsheetViewModel(SpreadsheetModel model) {
         this.model = model;
+        this.currentModel.set(model);
+        this.bindings = new CellBindings(model);
+        this.recalcProgress.bind(bindings.recalcProgressProperty());
+        this.sumCountAndPow.bind(bindings.sumCountAndPowProperty());
 
         // Mettre à jour la barre d'édition quand la cellule sélectionnée change
         selectedCell.addListener((obs, oldVal, newVal) -> {
             if (newVal != null) {
-                Cell cell = this.model.getCell(newVal[0], newVal[1]);
+                Cell cell = this.model.findCell(newVal[0], newVal[1]);
                 if (cell != null) {
                     editBarContent.set(cell.getContent());
                 } else {
@@ -60,15 +90,89 @@ public class SpreadsheetViewModel {
             }
         });
     }
+    // Threads démons, pour ne pas retenir la fermeture de l'application
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
     public SpreadsheetModel getModel() {
         return model;
     }
 
+    /**
+     * Modèle affiché ; change lorsqu'un fichier a été chargé
+     */
+    public ReadOnlyObjectProperty<SpreadsheetModel> modelProperty() {
+        return currentModel.getReadOnlyProperty();
+    }
+
+    /**
+     * Dernière tâche de chargement ou de sauvegarde lancée
+     */
+    public ReadOnlyObjectProperty<Task<?>> fileTaskProperty() {
+        return fileTask.getReadOnlyProperty();
+    }
+
+    /**
+     * Annule le chargement ou la sauvegarde en cours ; une sauvegarde complète annulée laisse le fichier intact
+     */
+    public void cancelFileTask() {
+        Task<?> task = fileTask.get();
+        if (task != null) {
+            task.cancel();
+        }
+    }
+
     public void setModel(SpreadsheetModel model) {
+        // Les passes encore prévues sur l'ancien modèle n'ont plus d'intérêt
+        this.model.getRecalcEngine().supersede();
+        this.bindings.dispose();
         this.model = model;
+        this.bindings = new CellBindings(model);
+        this.recalcProgress.bind(bindings.recalcProgressProperty());
+        this.sumCountAndPow.bind(bindings.sumCountAndPowProperty());
+        this.currentModel.set(model);
     }
-    public void loadFromFile(String filepath) throws IOException, IllegalArgumentException {
-        setModel(SpreadsheetFileHandler.loadSpreadsheet(filepath));
+
+    /**
+     * Charge un fichier en arrière-plan ; un chargement précédent encore en cours est annulé.
+     * En cas de succès, le modèle lu remplace le modèle courant sur le thread JavaFX et s'affiche aussitôt,
+     * ses formules sans valeur enregistrée étant évaluées ensuite par le thread du modèle.
+     */
+    public Task<SpreadsheetModel> loadFromFileAsync(String filepath) {
+        if (currentLoad != null) {
+            currentLoad.cancel();
+        }
+        AtomicBoolean text = new AtomicBoolean();
+        Task<SpreadsheetModel> task = new Task<>() {
+            @Override
+            protected SpreadsheetModel call() throws IOException {
+                text.set(!SpreadsheetFileHandler.isBinary(filepath));
+                return SpreadsheetFileHandler.loadSpreadsheet(filepath, fraction -> updateProgress(fraction, 1));
+            }
+        };
+        // Ajouté avant tout gestionnaire de la vue : le modèle est installé quand ceux-ci s'exécutent
+        task.addEventHandler(WorkerStateEvent.WORKER_STATE_SUCCEEDED,
+                event -> installModel(task.getValue(), filepath, text.get()));
+        currentLoad = task;
+        fileTask.set(task);
+        loadExecutor.execute(task);
+        return task;
+    }
+
+    /**
+     * Installe un modèle chargé et confie au thread du modèle l'évaluation de ses cellules en attente
+     */
+    private void installModel(SpreadsheetModel loaded, String filepath, boolean text) {
+        setModel(loaded);
+        currentFilePath = filepath;
+        currentFileText = text;
+        long token = loaded.getRecalcEngine().supersede();
+        modelExecutor.execute(() -> loaded.recalculatePending(token));
 
         // Check dimensions
 //        if (newModel.getRowCount() != model.getRowCount() || newModel.getColumnCount() != model.getColumnCount()) {
@@ -112,17 +216,30 @@ public class SpreadsheetViewModel {
         return selectedCell;
     }
 
+    /**
+     * Avancement du recalcul en arrière-plan, entre 0 et 1 ; vaut 1 au repos
+     */
+    public ReadOnlyDoubleProperty recalcProgressProperty() {
+        return recalcProgress;
+    }
+
     /**
      * Retourne la valeur affichée d'une cellule
      */
     public StringProperty getCellValueProperty(int row, int column) {
-        Cell cell = model.getCell(row, column);
-        if (cell != null) {
-            return cell.displayValueProperty();
+        if (model.isInBounds(row, column)) {
+            return bindings.displayValueProperty(row, column);
         }
         return new SimpleStringProperty("");
     }
 
+    /**
+     * Libère la propriété d'affichage d'une cellule que la vue ne montre plus
+     */
+    public void releaseCellValueProperty(int row, int column) {
+        bindings.release(row, column);
+    }
+
     /**
      * Sélectionne une cellule
      */
@@ -136,9 +253,9 @@ public class SpreadsheetViewModel {
      */
     public void setEditingCell(int row, int column) {
         addAction("Editing cell at " + row + "," + column);
-        Cell cell = model.getCell(row, column);
-        if (cell != null) {
-            cell.displayValueProperty().set(cell.getContent());
+        if (model.isInBounds(row, column)) {
+            Cell cell = model.findCell(row, column);
+            bindings.displayValueProperty(row, column).set(cell != null ? cell.getContent() : "");
         }
     }
 
@@ -147,7 +264,7 @@ public class SpreadsheetViewModel {
      */
 
     public void setNotEditingCell(int row, int column) {
-        Cell cell = model.getCell(row, column);
+        Cell cell = model.findCell(row, column);
         if (cell != null) {
             updateCellContent(row,column, cell.getContent());
         }
@@ -158,16 +275,14 @@ public class SpreadsheetViewModel {
      */
     public void updateCellContent(int row, int column, String content) {
         addAction("Update cell content at " + row + "," + column + ": " + content);
-        Cell cell = model.getCell(row, column);
-        if (cell != null) {
-            String oldContent = cell.getContent();
-            Command command = new CellChangeCommand(model, row, column, oldContent, content);
+        if (model.isInBounds(row, column)) {
+            Command command = new CellChangeCommand(model, row, column, content);
             executeCommand(command);
         }
     }
     private void executeCommand(Command command) {
         undoStack.push(command);
-        command.execute();
+        submitEdit(command::execute);
         redoStack.clear();
         updateUndoRedoState();
     }
@@ -175,7 +290,7 @@ public class SpreadsheetViewModel {
     public void undo() {
         if (!undoStack.isEmpty()) {
             Command command = undoStack.pop();
-            command.undo();
+            submitEdit(command::undo);
             redoStack.push(command);
             updateUndoRedoState();
         }
@@ -184,12 +299,21 @@ public class SpreadsheetViewModel {
     public void redo() {
         if (!redoStack.isEmpty()) {
             Command command = redoStack.pop();
-            command.execute();
+            submitEdit(command::execute);
             undoStack.push(command);
             updateUndoRedoState();
         }
     }
 
+    /**
+     * Confie une modification au thread du modèle ; elle dépasse toute passe de recalcul demandée avant elle
+     */
+    private void submitEdit(Runnable edit) {
+        SpreadsheetModel target = model;
+        long token = target.getRecalcEngine().supersede();
+        modelExecutor.execute(() -> target.applyEdit(edit, token));
+    }
+
     private void updateUndoRedoState() {
         canUndo.set(!undoStack.isEmpty());
         canRedo.set(!redoStack.isEmpty());
@@ -221,43 +345,96 @@ public class SpreadsheetViewModel {
         return actions.add(action);
     }
 
-    public void handleSave(Stage stage) throws IOException{
+    /**
+     * Ctrl+S : demande le fichier, proposé par défaut sur le fichier courant, et l'enregistre dans le format
+     * de celui-ci. Un fichier binaire déjà sauvegardé ne reçoit que les cellules modifiées depuis ;
+     * un fichier texte est réécrit en texte. La sauvegarde est une tâche du thread du modèle,
+     * exécutée après les éditions en attente.
+     *
+     * @return la tâche lancée, ou null si aucun fichier n'a été choisi
+     */
+    public Task<Void> handleSave(Stage stage) {
+        String target = chooseSaveFile(stage, "Save Spreadsheet");
+        if (target == null) {
+            return null;
+        }
+        return saveAsync(target, currentFileText, true);
+    }
+
+    /**
+     * Enregistre toujours au format binaire, complet ; le fichier choisi devient le fichier courant
+     */
+    public Task<Void> handleSaveAs(Stage stage) {
+        String target = chooseSaveFile(stage, "Save Spreadsheet As");
+        if (target == null) {
+            return null;
+        }
+        return saveAsync(target, false, false);
+    }
+
+    private String chooseSaveFile(Stage stage, String title) {
         FileChooser fileChooser = new FileChooser();
-        fileChooser.setTitle("Save Spreadsheet");
+        fileChooser.setTitle(title);
         fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Excel Files (*.e4e)", "*.e4e"));
+        if (currentFilePath != null) {
+            File current = new File(currentFilePath);
+            fileChooser.setInitialDirectory(current.getParentFile());
+            fileChooser.setInitialFileName(current.getName());
+        }
         File file = fileChooser.showSaveDialog(stage);
-        if (file != null) {
-            try {
-                // Ensure .e4e extension
-                String path = file.getAbsolutePath();
-                if (!path.endsWith(".e4e")) {
-                    file = new File(path + ".e4e");
+        if (file == null) {
+            return null;
+        }
+        // Ensure .e4e extension
+        String path = file.getAbsolutePath();
+        if (!path.endsWith(".e4e")) {
+            path = path + ".e4e";
+        }
+        return path;
+    }
+
+    private Task<Void> saveAsync(String path, boolean text, boolean incremental) {
+        SpreadsheetModel target = model;
+        Task<Void> task = new Task<>() {
+            @Override
+            protected Void call() throws IOException {
+                if (text) {
+                    SpreadsheetFileHandler.saveSpreadsheetAsText(target, path);
+                } else if (incremental) {
+                    SpreadsheetFileHandler.saveSpreadsheetIncremental(target, path, fraction -> updateProgress(fraction, 1));
+                } else {
+                    SpreadsheetFileHandler.saveSpreadsheet(target, path, fraction -> updateProgress(fraction, 1));
                 }
-                SpreadsheetFileHandler.saveSpreadsheet(this.getModel(), file.getAbsolutePath());
-            } catch (IOException e) {
-                throw new IOException();
+                return null;
             }
-        }
+        };
+        task.addEventHandler(WorkerStateEvent.WORKER_STATE_SUCCEEDED, event -> {
+            currentFilePath = path;
+            currentFileText = text;
+        });
+        fileTask.set(task);
+        modelExecutor.execute(task);
+        return task;
     }
-    public void handleOpen(Stage stage) throws IOException {
+
+    /**
+     * @return la tâche de chargement lancée, ou null si aucun fichier n'a été choisi
+     */
+    public Task<SpreadsheetModel> handleOpen(Stage stage) {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Open Spreadsheet");
         fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Excel Files (*.e4e)", "*.e4e"));
         File file = fileChooser.showOpenDialog(stage);
-        if (file != null) {
-            try {
-                this.loadFromFile(file.getAbsolutePath());
-            } catch (IOException | IllegalArgumentException e) {
-                throw new IOException();
-
-            }
+        if (file == null) {
+            return null;
         }
+        return loadFromFileAsync(file.getAbsolutePath());
     }
     public IntegerProperty sumAndPow() {
-        return this.model.sumCountAndPowInSpreadheetProperty();
+        return this.sumCountAndPow;
     }
 
     public int updateSumAndPower() {
-        return this.model.sumCountAndPowInSpreadheetProperty().get();
+        return this.model.getSumCountAndPowInSpreadheet();
     }
 }
\ No newline at end of file
@@ -0,0 +1,53 @@
+package excel.model;
+
+/**
+ * Mesure du temps de compilation d'une formule ; ce n'est pas un test, surefire ne l'exécute pas.
+ * Lancement après {@code mvn -B test-compile} :
+ * {@code java -cp target/classes:target/test-classes excel.model.ExpressionBuilderBenchmark}
+ * <p>
+ * Deux cas : des formules recopiées vers le bas, qui partagent le même gabarit (cache de gabarits atteint),
+ * et des formules toutes différentes (analyse complète à chaque appel).
+ */
+public final class ExpressionBuilderBenchmark {
+    private static final int CALLS = 200_000;
+    private static final int ROUNDS = 5;
+
+    private ExpressionBuilderBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        ExpressionBuilder builder = new ExpressionBuilder();
+        String[] filledDown = new String[CALLS];
+        String[] distinct = new String[CALLS];
+        for (int i = 0; i < CALLS; i++) {
+            int row = i + 1;
+            filledDown[i] = "A" + row + "*2+SUM(B" + row + ":D" + row + ")-C" + row + "/4";
+            distinct[i] = "A" + row + "*" + i + "+SUM(B" + row + ":D" + row + ")-C" + row + "/4";
+        }
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            double hit = measure(builder, filledDown);
+            ExpressionBuilder.getTemplateCache().clear();
+            double miss = measure(builder, distinct);
+            System.out.printf("passe %d : gabarit en cache %.2f us, formules distinctes %.2f us par formule%n",
+                    round, hit, miss);
+        }
+    }
+
+    // Temps moyen par formule, en microsecondes
+    private static double measure(ExpressionBuilder builder, String[] formulas) {
+        long start = System.nanoTime();
+        int errors = 0;
+        for (int i = 0; i < formulas.length; i++) {
+            // Une erreur de syntaxe est compilée en littéral, sans fonction
+            if (builder.compile(formulas[i], i, 0).getFunctionCount() != 1) {
+                errors++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if (errors > 0) {
+            throw new IllegalStateException(errors + " formules non compilées");
+        }
+        return elapsed / 1000.0 / formulas.length;
+    }
+}
@@ -0,0 +1,67 @@
+package excel.model;
+
+import excel.tools.ExcelConverter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ExpressionBuilderTest {
+    private static final int ROWS = 20;
+    private static final int COLUMNS = 8;
+    private static final int DATA_COLUMNS = 7;
+
+    @Test
+    void filledFormulasShareOneTemplateAndEvaluateAtTheirOrigin() {
+        SpreadsheetModel model = new SpreadsheetModel(ROWS, COLUMNS);
+        model.beginBatch();
+        for (int row = 0; row < ROWS; row++) {
+            for (int column = 0; column < DATA_COLUMNS; column++) {
+                model.setCellContentSilently(row, column, Integer.toString(row * 100 + column));
+            }
+        }
+        model.endBatch();
+
+        FormulaCache cache = ExpressionBuilder.getTemplateCache();
+        cache.clear();
+        ExpressionBuilder builder = new ExpressionBuilder();
+        int[][] origins = {{1, 6}, {2, 6}, {9, 7}, {ROWS - 2, 6}, {ROWS - 3, 7}};
+        CompiledFormula first = builder.compile(filledFormula(origins[0][0], origins[0][1]),
+                origins[0][0], origins[0][1]);
+        long misses = cache.getMissCount();
+
+        for (int[] origin : origins) {
+            int row = origin[0];
+            int column = origin[1];
+            String formula = filledFormula(row, column);
+            assertSame(first, builder.compile(formula, row, column), formula);
+
+            // Même gabarit, décalages appliqués à l'origine : cellule de gauche et deux colonnes avant elle
+            model.setCellContentSilently(row, column, "=" + formula);
+            double expected = (row * 100 + column - 1) * 10;
+            for (int r = row - 1; r <= row + 1; r++) {
+                expected += (r * 100 + column - 3) + (r * 100 + column - 2);
+            }
+            assertEquals(expected, model.findCell(row, column).getValue().getNumberValue(), formula);
+        }
+        // Compilations directes et affectations aux cellules : aucune nouvelle analyse
+        assertEquals(misses, cache.getMissCount());
+
+        // Sur la dernière ligne, la plage déborde de la feuille : même gabarit, mais #VALUE
+        String overflowing = filledFormula(ROWS - 1, 6);
+        assertSame(first, builder.compile(overflowing, ROWS - 1, 6));
+        model.setCellContentSilently(ROWS - 1, 6, "=" + overflowing);
+        assertEquals(CellError.VALUE_ERROR, model.findCell(ROWS - 1, 6).getValue().getErrorValue());
+
+        // Un autre décalage est un autre gabarit
+        assertNotSame(first, builder.compile(filledFormula(3, 6), 3, 7));
+    }
+
+    // Formule recopiée en (row, column) : cellule à gauche fois 10, plus la somme de 3 lignes sur 2 colonnes
+    private static String filledFormula(int row, int column) {
+        return ExcelConverter.rowColToExcel(row, column - 1) + "*10+SUM("
+                + ExcelConverter.rowColToExcel(row - 1, column - 3) + ":"
+                + ExcelConverter.rowColToExcel(row + 1, column - 2) + ")";
+    }
+}
@@ -0,0 +1,207 @@
+package excel.model;
+
+import excel.model.FormulaLexer.TokenType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FormulaLexerTest {
+    private static final String[] FORMULAS = {
+            "A1+B2", "sum(A1:B3)", "SUM(a1:B3)", "Avg (A1 : C3)", "count(A1:A2)+max(B1:B9)",
+            "A1B", "a1", "Ab1", "AB12.5", "A1,5", "1,5+2.5", "3A1", "12abc", "1..2", "A1..2",
+            "not true or false and x", "NOT(TRUE) Or FALSE", "A1>=B1", "A1!=2", "A1==B1", "!A1", "<>", "=",
+            "1 2", "  A1  ", "", "sum", "sum1", "SUM1", "true1", "e1", "é1", "Ä1", "A١",
+            // Limites des références : 6 lettres et 9 chiffres, puis au-delà
+            "ZZZZZZ999999999", "AAAAAAA1", "ZZZZZZZZ1", "ABCDEFGHIJ1", "A1234567890", "A2147483647",
+            "A0000000000001", "ZZZZZZ999999999+1", "sum(A1:ZZZZZZZ1)"
+    };
+
+    @Test
+    void tokenizesLikeThePreviousTokenizer() {
+        for (String formula : FORMULAS) {
+            assertSameTokens(formula);
+        }
+    }
+
+    @Test
+    void rejectsWhatThePreviousParserRejected() {
+        for (String formula : new String[]{"A2147483648", "A99999999999+1", "A1$", "#", "sum(A1:B2);"}) {
+            assertThrows(RuntimeException.class, () -> OldTokenizer.decode(OldTokenizer.tokenize(formula)), formula);
+            assertThrows(IllegalArgumentException.class, () -> FormulaLexer.tokenize(formula), formula);
+        }
+    }
+
+    @Test
+    void tokenizesRandomFormulasLikeThePreviousTokenizer() {
+        String alphabet = "ABZabz019,. +-*/^()<>=!:";
+        String[] words = {"sum", "AVG", "and", "or", "Not", "true", "FALSE", "A1", "ZZZZZZ", "999999999", "AAAAAAA"};
+        Random random = new Random(8);
+        for (int n = 0; n < 20000; n++) {
+            StringBuilder formula = new StringBuilder();
+            int length = random.nextInt(16);
+            for (int i = 0; i < length; i++) {
+                if (random.nextInt(4) == 0) {
+                    formula.append(words[random.nextInt(words.length)]);
+                } else {
+                    formula.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+            }
+            assertSameTokens(formula.toString());
+        }
+    }
+
+    private static void assertSameTokens(String formula) {
+        List<String[]> expected = OldTokenizer.tokenize(formula);
+        int[][] coordinates;
+        try {
+            coordinates = OldTokenizer.decode(expected);
+        } catch (NumberFormatException e) {
+            // L'ancienne conversion échouait : la formule était une erreur de syntaxe
+            assertThrows(IllegalArgumentException.class, () -> FormulaLexer.tokenize(formula), formula);
+            return;
+        }
+
+        FormulaLexer lexer = FormulaLexer.tokenize(formula);
+        assertEquals(expected.size(), lexer.size(), formula);
+        for (int i = 0; i < lexer.size(); i++) {
+            TokenType type = TokenType.valueOf(expected.get(i)[0]);
+            assertEquals(type, lexer.type(i), formula);
+            assertEquals(expected.get(i)[1], type == TokenType.FUNCTION || type == TokenType.BOOLEAN
+                    || type == TokenType.LOGICAL_OPERATOR ? lexer.text(i).toLowerCase() : lexer.text(i), formula);
+            if (type == TokenType.CELL_REFERENCE) {
+                assertEquals(coordinates[i][0], lexer.row(i), formula);
+                assertEquals(coordinates[i][1], lexer.column(i), formula);
+            }
+        }
+    }
+
+    /**
+     * Analyse lexicale d'origine (avant l'analyse en une passe), gardée comme référence :
+     * un token est un couple {type, texte}
+     */
+    private static final class OldTokenizer {
+        private static final Pattern CELL_REFERENCE_PATTERN = Pattern.compile("([A-Z]+)([0-9]+)");
+
+        static List<String[]> tokenize(String expression) {
+            List<String[]> tokens = new ArrayList<>();
+            StringBuilder currentToken = new StringBuilder();
+            String currentType = null;
+
+            for (int i = 0; i < expression.length(); i++) {
+                char c = expression.charAt(i);
+
+                if (Character.isWhitespace(c)) {
+                    if (currentType != null) {
+                        tokens.add(new String[]{currentType, currentToken.toString()});
+                        currentToken.setLength(0);
+                        currentType = null;
+                    }
+                    continue;
+                }
+
+                if (c == '(' || c == ')' || c == ':') {
+                    if (currentType != null) {
+                        tokens.add(new String[]{currentType, currentToken.toString()});
+                        currentToken.setLength(0);
+                    }
+                    tokens.add(new String[]{"PARENTHESIS", String.valueOf(c)});
+                    currentType = null;
+                    continue;
+                }
+
+                if (c == '+' || c == '-' || c == '*' || c == '/' || c == '^') {
+                    if (currentType != null) {
+                        tokens.add(new String[]{currentType, currentToken.toString()});
+                        currentToken.setLength(0);
+                    }
+                    tokens.add(new String[]{"OPERATOR", String.valueOf(c)});
+                    currentType = null;
+                    continue;
+                }
+
+                if (c == '>' || c == '<' || c == '=' || c == '!') {
+                    if (currentType != null) {
+                        tokens.add(new String[]{currentType, currentToken.toString()});
+                        currentToken.setLength(0);
+                    }
+                    if (i + 1 < expression.length() && expression.charAt(i + 1) == '=') {
+                        tokens.add(new String[]{"COMPARISON_OPERATOR", c + "="});
+                        i++;
+                    } else {
+                        tokens.add(new String[]{"COMPARISON_OPERATOR", String.valueOf(c)});
+                    }
+                    currentType = null;
+                    continue;
+                }
+
+                if (Character.isLetter(c)) {
+                    if (currentType != null && !currentType.equals("TEXT")) {
+                        tokens.add(new String[]{currentType, currentToken.toString()});
+                        currentToken.setLength(0);
+                    }
+                    currentType = "TEXT";
+                    currentToken.append(c);
+                    continue;
+                }
+
+                if (Character.isDigit(c) || c == ',' || c == '.') {
+                    if (currentType == null) {
+                        currentType = "NUMBER";
+                    }
+                    currentToken.append(c);
+                    continue;
+                }
+
+                throw new IllegalArgumentException("Caractère non reconnu: " + c);
+            }
+            if (currentType != null) {
+                tokens.add(new String[]{currentType, currentToken.toString()});
+            }
+
+            for (String[] token : tokens) {
+                if (!token[0].equals("TEXT")) {
+                    continue;
+                }
+                String value = token[1];
+                if (CELL_REFERENCE_PATTERN.matcher(value).matches()) {
+                    token[0] = "CELL_REFERENCE";
+                } else if (value.equalsIgnoreCase("and") || value.equalsIgnoreCase("or")
+                        || value.equalsIgnoreCase("not")) {
+                    token[0] = "LOGICAL_OPERATOR";
+                    token[1] = value.toLowerCase();
+                } else if (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false")) {
+                    token[0] = "BOOLEAN";
+                    token[1] = value.toLowerCase();
+                } else if (FunctionRegistry.findName(value, 0, value.length()) != null) {
+                    token[0] = "FUNCTION";
+                    token[1] = value.toLowerCase();
+                }
+            }
+            return tokens;
+        }
+
+        // Coordonnées des références, converties comme le faisait l'ancien ExcelConverter
+        static int[][] decode(List<String[]> tokens) {
+            int[][] coordinates = new int[tokens.size()][];
+            for (int i = 0; i < tokens.size(); i++) {
+                if (tokens.get(i)[0].equals("CELL_REFERENCE")) {
+                    String reference = tokens.get(i)[1];
+                    String letters = reference.replaceAll("[0-9]", "");
+                    String numbers = reference.replaceAll("[A-Za-z]", "");
+                    int column = 0;
+                    for (int j = 0; j < letters.length(); j++) {
+                        column = column * 26 + (Character.toUpperCase(letters.charAt(j)) - 'A' + 1);
+                    }
+                    coordinates[i] = new int[]{Integer.parseInt(numbers) - 1, column - 1};
+                }
+            }
+            return coordinates;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package excel.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FunctionExpressionTest {
+
+    @Test
+    void returnsFirstErrorInRowMajorOrder() {
+        SpreadsheetModel model = new SpreadsheetModel(5, 5);
+        model.setCellContentSilently(0, 0, "1");
+        model.setCellContentSilently(0, 1, "=(");
+        model.setCellContentSilently(1, 0, "=1/0");
+        model.setCellContentSilently(1, 1, "2");
+        assertEquals(CellError.SYNTAX_ERROR, model.findCell(0, 1).getValue().getErrorValue());
+        assertEquals(CellError.VALUE_ERROR, model.findCell(1, 0).getValue().getErrorValue());
+
+        for (String function : new String[]{"SUM", "AVG", "MIN", "MAX", "PRODUCT"}) {
+            model.setCellContentSilently(4, 4, "=" + function + "(A1:B2)");
+            assertEquals(CellError.SYNTAX_ERROR, model.findCell(4, 4).getValue().getErrorValue(), function);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package excel.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntervalTreeTest {
+
+    @Test
+    void stabMatchesBruteForceScanAfterRandomInsertionsAndRemovals() {
+        Random random = new Random(4);
+        IntervalTree<Long> tree = new IntervalTree<>();
+        // {début, fin, identifiant} des intervalles présents dans l'arbre
+        List<long[]> intervals = new ArrayList<>();
+        long nextId = 0;
+
+        for (int step = 0; step < 10000; step++) {
+            if (intervals.isEmpty() || random.nextInt(3) > 0) {
+                // Des débuts souvent égaux, pour les intervalles distingués par leur seul identifiant
+                int start = random.nextInt(200);
+                int end = start + random.nextInt(random.nextBoolean() ? 5 : 100);
+                tree.insert(start, end, nextId, nextId);
+                intervals.add(new long[]{start, end, nextId});
+                nextId++;
+            } else {
+                long[] removed = intervals.remove(random.nextInt(intervals.size()));
+                assertTrue(tree.remove((int) removed[0], removed[2]));
+                assertFalse(tree.remove((int) removed[0], removed[2]));
+            }
+            assertEquals(intervals.size(), tree.size());
+
+            int point = random.nextInt(320) - 10;
+            List<Long> stabbed = new ArrayList<>();
+            tree.stab(point, stabbed::add);
+            List<Long> expected = new ArrayList<>();
+            for (long[] interval : intervals) {
+                if (interval[0] <= point && point <= interval[1]) {
+                    expected.add(interval[2]);
+                }
+            }
+            Collections.sort(stabbed);
+            Collections.sort(expected);
+            assertEquals(expected, stabbed, "point " + point);
+        }
+    }
+}
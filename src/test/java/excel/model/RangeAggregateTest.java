@@ -0,0 +1,157 @@
+package excel.model;
+
+import excel.tools.ExcelConverter;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RangeAggregateTest {
+    private static final int DATA_ROWS = 150;
+    private static final int DATA_COLUMNS = 4;
+    private static final int FORMULAS = 40;
+
+    // Contenus écrits dans la plage de données : surtout des nombres, et des transitions vers NaN,
+    // les infinis, le texte, les booléens, les erreurs et les cellules vides
+    private static final String[] SPECIAL_CONTENTS = {
+            "NaN", "Infinity", "-Infinity", "abc", "true", "", "=(", "=A1/0", "0,5", "-3.25"
+    };
+
+    @Test
+    void runningSumsMatchRescanAfterRandomEdits() throws CircularReferenceException {
+        assertFunctionsMatchRescan(new String[]{"SUM", "AVG", "COUNT"}, new Random(15));
+    }
+
+    @Test
+    void blockSummariesMatchRescanAfterRandomEdits() throws CircularReferenceException {
+        assertFunctionsMatchRescan(new String[]{"MIN", "MAX", "PRODUCT", "STDEV"}, new Random(16));
+    }
+
+    @Test
+    void sumOfOverflowingAndInfiniteValuesMatchesNaiveAccumulation() {
+        SpreadsheetModel model = new SpreadsheetModel(5, 5);
+        model.setCellContentSilently(4, 0, "=SUM(A1:A3)");
+        model.setCellContentSilently(4, 1, "=AVG(A1:A3)");
+        model.setCellContentSilently(4, 2, "=A1+A2+A3");
+        String[][] edits = {
+                {"1e308", "1e308", "0"}, {"Infinity", "1", "0"}, {"1", "-Infinity", "0"},
+                {"Infinity", "-Infinity", "0"}, {"1e308", "1e308", "-1e308"}, {"NaN", "1", "2"},
+                // Retour à des valeurs finies après une somme infinie : la somme est relue
+                {"1e308", "1", "2"}, {"3", "1", "2"}
+        };
+        for (String[] contents : edits) {
+            for (int row = 0; row < contents.length; row++) {
+                model.setCellContentSilently(row, 0, contents[row]);
+            }
+            double naive = model.findCell(4, 2).getValue().getNumberValue();
+            String message = String.join(", ", contents);
+            assertEquals(naive, model.findCell(4, 0).getValue().getNumberValue(), message);
+            assertEquals(naive / 3, model.findCell(4, 1).getValue().getNumberValue(), message);
+        }
+    }
+
+    /**
+     * Place des formules sur des plages aléatoires de la zone de données, y applique des modifications
+     * aléatoires et compare après chacune la valeur de chaque formule à celle d'un parcours complet de sa plage
+     */
+    private static void assertFunctionsMatchRescan(String[] functions, Random random)
+            throws CircularReferenceException {
+        SpreadsheetModel model = new SpreadsheetModel(DATA_ROWS, DATA_COLUMNS + 2);
+        model.beginBatch();
+        for (int row = 0; row < DATA_ROWS; row++) {
+            for (int column = 0; column < DATA_COLUMNS; column++) {
+                model.setCellContentSilently(row, column, Integer.toString(random.nextInt(20) - 5));
+            }
+        }
+        String[] names = new String[FORMULAS];
+        int[][] ranges = new int[FORMULAS][];
+        for (int i = 0; i < FORMULAS; i++) {
+            int firstRow = random.nextInt(DATA_ROWS);
+            int lastRow = firstRow + random.nextInt(Math.min(DATA_ROWS - firstRow, random.nextBoolean() ? 3 : 140));
+            int firstColumn = random.nextInt(DATA_COLUMNS);
+            int lastColumn = firstColumn + random.nextInt(DATA_COLUMNS - firstColumn);
+            names[i] = functions[random.nextInt(functions.length)];
+            ranges[i] = new int[]{firstRow, firstColumn, lastRow, lastColumn};
+            model.setCellContentSilently(i / 2, DATA_COLUMNS + i % 2, "=" + names[i] + "("
+                    + ExcelConverter.rowColToExcel(firstRow, firstColumn) + ":"
+                    + ExcelConverter.rowColToExcel(lastRow, lastColumn) + ")");
+        }
+        model.endBatch();
+
+        for (int edit = 0; edit < 4000; edit++) {
+            String content = random.nextInt(4) == 0
+                    ? SPECIAL_CONTENTS[random.nextInt(SPECIAL_CONTENTS.length)]
+                    : Integer.toString(random.nextInt(2000) - 1000);
+            model.setCellContentSilently(random.nextInt(DATA_ROWS), random.nextInt(DATA_COLUMNS), content);
+
+            for (int i = 0; i < FORMULAS; i++) {
+                Cell formula = model.findCell(i / 2, DATA_COLUMNS + i % 2);
+                CellValue expected = rescan(model, formula, names[i], ranges[i]);
+                assertSameValue(expected, formula.getValue(), "edit " + edit + ", " + formula.getAddress()
+                        + " = " + formula.getContent());
+            }
+        }
+    }
+
+    // Parcours cellule par cellule de la plage, sans agrégat ni résumé par blocs
+    private static CellValue rescan(SpreadsheetModel model, Cell origin, String name, int[] range)
+            throws CircularReferenceException {
+        if (FunctionRegistry.getAggregation(name) == FunctionRegistry.Aggregation.RUNNING_SUM) {
+            return naiveRunningSum(model, name, range);
+        }
+        RangeStatistics statistics = new RangeStatistics();
+        CellValue error = FunctionExpression.scan(model.getCellStore(), origin, range[0], range[1], range[2], range[3],
+                statistics);
+        if (error != null) {
+            return error;
+        }
+        if (statistics.getCount() == 0) {
+            return CellValue.ofError(CellError.VALUE_ERROR);
+        }
+        return FunctionRegistry.get(name).apply(statistics);
+    }
+
+    /**
+     * SUM, AVG et COUNT calculés sans RangeStatistics : somme de doubles ligne par ligne,
+     * première erreur rencontrée, et #VALUE pour une cellule vide ou non numérique
+     */
+    private static CellValue naiveRunningSum(SpreadsheetModel model, String name, int[] range) {
+        double sum = 0;
+        int count = 0;
+        for (int row = range[0]; row <= range[2]; row++) {
+            for (int column = range[1]; column <= range[3]; column++) {
+                Cell cell = model.findCell(row, column);
+                if (cell == null) {
+                    return CellValue.ofError(CellError.VALUE_ERROR);
+                }
+                CellValue value = cell.getValue();
+                if (value.isError()) {
+                    return value;
+                }
+                if (!value.isNumber()) {
+                    return CellValue.ofError(CellError.VALUE_ERROR);
+                }
+                sum += value.getNumberValue();
+                count++;
+            }
+        }
+        if (name.equals("SUM")) {
+            return CellValue.ofNumber(sum);
+        }
+        return CellValue.ofNumber(name.equals("AVG") ? sum / count : count);
+    }
+
+    private static void assertSameValue(CellValue expected, CellValue actual, String message) {
+        assertEquals(expected.getType(), actual.getType(), message);
+        if (expected.isError()) {
+            assertEquals(expected.getErrorValue(), actual.getErrorValue(), message);
+        } else if (Double.isFinite(expected.getNumberValue())) {
+            // La somme incrémentale et celle du parcours peuvent différer d'un arrondi
+            double tolerance = 1e-9 * Math.max(1, Math.abs(expected.getNumberValue()));
+            assertEquals(expected.getNumberValue(), actual.getNumberValue(), tolerance, message);
+        } else {
+            assertEquals(expected.getNumberValue(), actual.getNumberValue(), message);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package excel.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RangeStatisticsTest {
+    // Plages dont la somme dépasse les doubles ou contient un infini ou NaN
+    private static final double[][] NON_FINITE_RANGES = {
+            {1e308, 1e308},
+            {-1e308, -1e308, 5},
+            {1e308, 1e308, -1e308},
+            {Double.MAX_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE},
+            {Double.POSITIVE_INFINITY, 1},
+            {1, Double.NEGATIVE_INFINITY},
+            {Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY},
+            {1e308, 1e308, Double.POSITIVE_INFINITY},
+            {Double.NaN, 1},
+            {2, Double.POSITIVE_INFINITY, 0.1, 0.2}
+    };
+
+    @Test
+    void sumAndMeanOfNonFiniteRangesMatchNaiveAccumulation() {
+        for (double[] values : NON_FINITE_RANGES) {
+            RangeStatistics statistics = new RangeStatistics();
+            for (double value : values) {
+                statistics.accept(value);
+            }
+            assertSameAsNaive(values, statistics);
+        }
+    }
+
+    @Test
+    void mergedSumOfNonFiniteRangesMatchesNaiveAccumulation() {
+        for (double[] values : NON_FINITE_RANGES) {
+            // Regrouper les valeurs peut éviter un dépassement intermédiaire : seules les plages
+            // contenant un infini ou NaN ont une somme indépendante du découpage
+            if (Arrays.stream(values).allMatch(Double::isFinite)) {
+                continue;
+            }
+            for (int split = 0; split <= values.length; split++) {
+                RangeStatistics first = new RangeStatistics();
+                RangeStatistics second = new RangeStatistics();
+                for (int i = 0; i < values.length; i++) {
+                    (i < split ? first : second).accept(values[i]);
+                }
+                first.merge(second);
+                assertSameAsNaive(values, first);
+            }
+        }
+    }
+
+    @Test
+    void sumIsStillCompensatedForFiniteValues() {
+        RangeStatistics statistics = new RangeStatistics();
+        for (double value : new double[]{1e16, 1, 1, -1e16}) {
+            statistics.accept(value);
+        }
+        assertEquals(2, statistics.getSum());
+    }
+
+    // Somme de doubles de gauche à droite, comme le faisait le parcours d'origine
+    private static void assertSameAsNaive(double[] values, RangeStatistics statistics) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        String message = Arrays.toString(values);
+        assertEquals(sum, statistics.getSum(), message);
+        assertEquals(sum / values.length, statistics.getMean(), message);
+    }
+}
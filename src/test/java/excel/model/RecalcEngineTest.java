@@ -0,0 +1,194 @@
+package excel.model;
+
+import excel.tools.ExcelConverter;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RecalcEngineTest {
+
+    @Test
+    void diamondIsEvaluatedOnceWithBothBranchesUpToDate() {
+        SpreadsheetModel model = new SpreadsheetModel(5, 5);
+        model.setCellContentSilently(0, 0, "1");
+        model.setCellContentSilently(0, 1, "=A1*2");
+        model.setCellContentSilently(0, 2, "=A1+1");
+        model.setCellContentSilently(0, 3, "=B1+C1");
+        List<Cell> recalculated = new ArrayList<>();
+        model.addListener(recalculated::addAll);
+
+        model.setCellContentSilently(0, 0, "5");
+
+        assertEquals(16, model.findCell(0, 3).getValue().getNumberValue());
+        assertEquals(1, recalculated.stream().filter(cell -> cell.getColumn() == 3).count());
+        assertEquals(4, recalculated.size());
+    }
+
+    @Test
+    void deepChainAndCycleAreHandledWithoutRecursion() {
+        int length = 100_000;
+        SpreadsheetModel model = new SpreadsheetModel(length, 1);
+        model.beginBatch();
+        model.setCellContentSilently(0, 0, "1");
+        for (int row = 1; row < length; row++) {
+            model.setCellContentSilently(row, 0, "=A" + row + "+1");
+        }
+        model.endBatch();
+        assertEquals(length, model.findCell(length - 1, 0).getValue().getNumberValue());
+
+        model.setCellContentSilently(0, 0, "2");
+
+        assertEquals(length + 1, model.findCell(length - 1, 0).getValue().getNumberValue());
+
+        // Refermer la chaîne en un cycle de 100 000 cellules, puis le rompre
+        model.setCellContentSilently(0, 0, "=A" + length);
+        assertEquals(CellError.CIRCULAR_REF, model.findCell(length - 1, 0).getValue().getErrorValue());
+        model.setCellContentSilently(0, 0, "3");
+        assertEquals(length + 2, model.findCell(length - 1, 0).getValue().getNumberValue());
+    }
+
+    @Test
+    void cycleIsMarkedThenRecoveredWhenBroken() {
+        SpreadsheetModel model = new SpreadsheetModel(5, 5);
+        model.setCellContentSilently(0, 0, "=B1");
+        model.setCellContentSilently(0, 1, "=C1+1");
+        model.setCellContentSilently(0, 2, "=A1");
+        model.setCellContentSilently(1, 0, "=A1*2");
+
+        assertEquals(CellError.CIRCULAR_REF, model.findCell(0, 0).getValue().getErrorValue());
+        assertEquals(CellError.CIRCULAR_REF, model.findCell(0, 1).getValue().getErrorValue());
+        assertEquals(CellError.CIRCULAR_REF, model.findCell(0, 2).getValue().getErrorValue());
+
+        model.setCellContentSilently(0, 2, "3");
+
+        assertEquals(4, model.findCell(0, 0).getValue().getNumberValue());
+        assertEquals(4, model.findCell(0, 1).getValue().getNumberValue());
+        assertEquals(8, model.findCell(1, 0).getValue().getNumberValue());
+    }
+
+    @Test
+    void randomEditsMatchAFullRecalculation() {
+        int rows = 30;
+        int columns = 4;
+        Random random = new Random(2);
+        SpreadsheetModel model = new SpreadsheetModel(rows, columns);
+        String[][] contents = new String[rows][columns];
+        for (int edit = 0; edit < 3000; edit++) {
+            int row = random.nextInt(rows);
+            int column = random.nextInt(columns);
+            contents[row][column] = randomContent(random, rows, columns);
+            model.setCellContentSilently(row, column, contents[row][column]);
+
+            if (edit % 100 == 99) {
+                assertSameValues(model, rebuild(contents));
+            }
+        }
+    }
+
+    @Test
+    void parallelLevelsMatchSerialEvaluation() {
+        // Deux tuiles de haut et une de large : la plupart des dépendances restent dans une même tuile,
+        // où les évaluations parallèles écrivent dans les mêmes tableaux du CellStore
+        int rows = 2 * CellStore.TILE_SIZE;
+        int columns = 12;
+        SpreadsheetModel parallel = new SpreadsheetModel(rows, columns);
+        SpreadsheetModel serial = new SpreadsheetModel(rows, columns);
+        parallel.getRecalcEngine().setParallelThreshold(1);
+        serial.getRecalcEngine().setParallelThreshold(Integer.MAX_VALUE);
+
+        Random random = new Random(10);
+        parallel.beginBatch();
+        serial.beginBatch();
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                // Chaque formule ne dépend que de lignes précédentes : graphe sans cycle, aux niveaux larges
+                String content = row == 0 ? Integer.toString(random.nextInt(10)) : earlierRowFormula(random, row);
+                parallel.setCellContentSilently(row, column, content);
+                serial.setCellContentSilently(row, column, content);
+            }
+        }
+        parallel.endBatch();
+        serial.endBatch();
+        assertSameValues(parallel, serial);
+
+        for (int edit = 0; edit < 20; edit++) {
+            int row = random.nextInt(3);
+            int column = random.nextInt(columns);
+            String content = row == 0 ? Integer.toString(random.nextInt(10)) : earlierRowFormula(random, row);
+            parallel.setCellContentSilently(row, column, content);
+            serial.setCellContentSilently(row, column, content);
+            assertSameValues(parallel, serial);
+        }
+    }
+
+    // Formule sur des cellules des lignes au-dessus : références, plages et erreurs possibles
+    private static String earlierRowFormula(Random random, int row) {
+        String first = earlierReference(random, row);
+        switch (random.nextInt(4)) {
+            case 0:
+                return "=" + first + "+" + earlierReference(random, row);
+            case 1:
+                return "=" + first + "*2-" + earlierReference(random, row);
+            case 2:
+                return "=SUM(A1:" + first + ")/" + random.nextInt(3);
+            default:
+                return "=MAX(A1:" + first + ")+" + first;
+        }
+    }
+
+    private static String earlierReference(Random random, int row) {
+        return (char) ('A' + random.nextInt(12)) + Integer.toString(Math.max(1, row - random.nextInt(4)));
+    }
+
+    // Formules sur des cellules quelconques : chaînes, plages, références circulaires et cellules vides
+    private static String randomContent(Random random, int rows, int columns) {
+        switch (random.nextInt(6)) {
+            case 0:
+                return "";
+            case 1:
+                return Integer.toString(random.nextInt(10));
+            case 2:
+                return "=" + reference(random, rows, columns) + "+" + random.nextInt(3);
+            case 3:
+                return "=" + reference(random, rows, columns) + "*" + reference(random, rows, columns);
+            case 4:
+                return "=SUM(A1:" + reference(random, rows, columns) + ")";
+            default:
+                return "=" + reference(random, rows, columns) + ">1";
+        }
+    }
+
+    private static String reference(Random random, int rows, int columns) {
+        return (char) ('A' + random.nextInt(columns)) + Integer.toString(random.nextInt(rows) + 1);
+    }
+
+    private static SpreadsheetModel rebuild(String[][] contents) {
+        SpreadsheetModel model = new SpreadsheetModel(contents.length, contents[0].length);
+        model.beginBatch();
+        for (int row = 0; row < contents.length; row++) {
+            for (int column = 0; column < contents[row].length; column++) {
+                if (contents[row][column] != null) {
+                    model.setCellContentSilently(row, column, contents[row][column]);
+                }
+            }
+        }
+        model.endBatch();
+        return model;
+    }
+
+    private static void assertSameValues(SpreadsheetModel actual, SpreadsheetModel expected) {
+        for (int row = 0; row < expected.getRowCount(); row++) {
+            for (int column = 0; column < expected.getColumnCount(); column++) {
+                Cell cell = expected.findCell(row, column);
+                Cell other = actual.findCell(row, column);
+                String expectedValue = cell != null ? cell.getDisplayValue() : "";
+                String actualValue = other != null ? other.getDisplayValue() : "";
+                assertEquals(expectedValue, actualValue, ExcelConverter.rowColToExcel(row, column));
+            }
+        }
+    }
+}
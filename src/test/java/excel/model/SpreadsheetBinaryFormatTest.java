@@ -0,0 +1,107 @@
+package excel.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SpreadsheetBinaryFormatTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void incrementalSaveReplaysJournal() throws IOException {
+        String file = directory.resolve("sheet.e4e").toString();
+        SpreadsheetModel model = new SpreadsheetModel(10, 3);
+        model.setCellContentSilently(0, 0, "1");
+        model.setCellContentSilently(0, 1, "=A1*2");
+        SpreadsheetFileHandler.saveSpreadsheet(model, file);
+        model.setCellContentSilently(0, 0, "4");
+        SpreadsheetFileHandler.saveSpreadsheetIncremental(model, file);
+
+        SpreadsheetModel loaded = SpreadsheetFileHandler.loadSpreadsheet(file);
+        assertEquals(4, loaded.findCell(0, 0).getValue().getNumberValue());
+        assertEquals(8, loaded.findCell(0, 1).getValue().getNumberValue());
+    }
+
+    @Test
+    void fullSaveEvaluatesCellsLeftBySupersededPass() throws IOException {
+        String file = directory.resolve("sheet.e4e").toString();
+        SpreadsheetModel model = new SpreadsheetModel(10, 3);
+        model.setCellContentSilently(0, 0, "1");
+        model.setCellContentSilently(0, 1, "=A1*2");
+        long stale = model.getRecalcEngine().supersede();
+        model.getRecalcEngine().supersede();
+        model.applyEdit(() -> model.setCellContentSilently(0, 0, "5"), stale);
+        assertEquals(2, model.findCell(0, 1).getValue().getNumberValue());
+
+        SpreadsheetFileHandler.saveSpreadsheet(model, file);
+
+        SpreadsheetModel loaded = SpreadsheetFileHandler.loadSpreadsheet(file);
+        assertEquals(5, loaded.findCell(0, 0).getValue().getNumberValue());
+        assertEquals(10, loaded.findCell(0, 1).getValue().getNumberValue());
+    }
+
+    @Test
+    void fullSaveEvaluatesDeferredLoad() throws IOException {
+        String file = directory.resolve("sheet.e4e").toString();
+        SpreadsheetModel model = new SpreadsheetModel(10, 3);
+        model.setCellContentSilently(0, 0, "1");
+        model.setCellContentSilently(0, 1, "=A1*2");
+        SpreadsheetFileHandler.saveSpreadsheet(model, file);
+        model.setCellContentSilently(0, 0, "3");
+        SpreadsheetFileHandler.saveSpreadsheetIncremental(model, file);
+
+        // Chargement sans recalcul : B1 garde la valeur enregistrée dans le corps du fichier
+        SpreadsheetModel deferred = SpreadsheetFileHandler.loadSpreadsheet(file, fraction -> {
+        });
+        String copy = directory.resolve("copy.e4e").toString();
+        SpreadsheetFileHandler.saveSpreadsheet(deferred, copy);
+
+        SpreadsheetModel loaded = SpreadsheetFileHandler.loadSpreadsheet(copy);
+        assertEquals(6, loaded.findCell(0, 1).getValue().getNumberValue());
+    }
+
+    @Test
+    void shortTruncatedRecordIsNotAppendedTo() throws IOException {
+        // Moins d'octets qu'un en-tête d'enregistrement
+        assertIncompleteTailIsDiscarded(new byte[]{'J', 0, 0, 0});
+    }
+
+    @Test
+    void recordWithMissingContentIsNotAppendedTo() throws IOException {
+        // En-tête complet, contenu annoncé plus long que ce qui reste
+        ByteBuffer record = ByteBuffer.allocate(15);
+        record.put((byte) 'J').putInt(2).putInt(0).putInt(50).put((byte) '9').put((byte) '9');
+        assertIncompleteTailIsDiscarded(record.array());
+    }
+
+    private void assertIncompleteTailIsDiscarded(byte[] tail) throws IOException {
+        Path path = directory.resolve("sheet.e4e");
+        String file = path.toString();
+        SpreadsheetModel model = new SpreadsheetModel(10, 3);
+        model.setCellContentSilently(0, 0, "1");
+        SpreadsheetFileHandler.saveSpreadsheet(model, file);
+        model.setCellContentSilently(1, 0, "2");
+        SpreadsheetFileHandler.saveSpreadsheetIncremental(model, file);
+        Files.write(path, tail, StandardOpenOption.APPEND);
+
+        SpreadsheetModel loaded = SpreadsheetFileHandler.loadSpreadsheet(file);
+        assertEquals(2, loaded.findCell(1, 0).getValue().getNumberValue());
+        assertEquals(null, loaded.findCell(2, 0));
+
+        loaded.setCellContentSilently(3, 0, "3");
+        SpreadsheetFileHandler.saveSpreadsheetIncremental(loaded, file);
+
+        SpreadsheetModel reloaded = SpreadsheetFileHandler.loadSpreadsheet(file);
+        assertEquals(1, reloaded.findCell(0, 0).getValue().getNumberValue());
+        assertEquals(2, reloaded.findCell(1, 0).getValue().getNumberValue());
+        assertEquals(3, reloaded.findCell(3, 0).getValue().getNumberValue());
+    }
+}
@@ -0,0 +1,103 @@
+package excel.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpreadsheetTextFormatTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void textFileStaysTextWhenSavedAgain() throws IOException {
+        String file = directory.resolve("sheet.e4e").toString();
+        SpreadsheetModel model = new SpreadsheetModel(10, 3);
+        model.setCellContentSilently(0, 0, "1");
+        model.setCellContentSilently(1, 2, "=A1+1;x");
+        SpreadsheetFileHandler.saveSpreadsheetAsText(model, file);
+
+        SpreadsheetModel loaded = SpreadsheetFileHandler.loadSpreadsheet(file);
+        loaded.setCellContentSilently(0, 0, "2");
+        SpreadsheetFileHandler.saveSpreadsheetAsText(loaded, file);
+
+        assertFalse(SpreadsheetFileHandler.isBinary(file));
+        SpreadsheetModel reloaded = SpreadsheetFileHandler.loadSpreadsheet(file);
+        assertEquals("2", reloaded.findCell(0, 0).getContent());
+        assertEquals("=A1+1;x", reloaded.findCell(1, 2).getContent());
+    }
+
+    @Test
+    void incrementalSaveRewritesFileOverwrittenAsText() throws IOException {
+        String file = directory.resolve("sheet.e4e").toString();
+        SpreadsheetModel model = new SpreadsheetModel(10, 3);
+        model.setCellContentSilently(0, 0, "1");
+        SpreadsheetFileHandler.saveSpreadsheet(model, file);
+        model.setCellContentSilently(0, 1, "=A1*2");
+        SpreadsheetFileHandler.saveSpreadsheetAsText(model, file);
+        model.setCellContentSilently(0, 0, "3");
+        SpreadsheetFileHandler.saveSpreadsheetIncremental(model, file);
+
+        assertTrue(SpreadsheetFileHandler.isBinary(file));
+        SpreadsheetModel loaded = SpreadsheetFileHandler.loadSpreadsheet(file);
+        assertEquals(3, loaded.findCell(0, 0).getValue().getNumberValue());
+        assertEquals(6, loaded.findCell(0, 1).getValue().getNumberValue());
+    }
+
+    @Test
+    void roundTripsThroughManySmallChunks() throws IOException {
+        Path file = directory.resolve("sheet.e4e");
+        Random random = new Random(19);
+        SpreadsheetModel model = new SpreadsheetModel(200, 6);
+        for (int i = 0; i < 400; i++) {
+            // Longueurs variées et contenus avec des ';' : les fins de ligne tombent partout dans les tranches
+            String content = random.nextBoolean()
+                    ? Integer.toString(random.nextInt(100000))
+                    : "=A1+" + "ab;x".repeat(random.nextInt(20));
+            model.setCellContentSilently(random.nextInt(200), random.nextInt(6), content);
+        }
+        SpreadsheetTextFormat.write(model, file);
+
+        for (int minChunkBytes : new int[]{1, 7, 64, 1000}) {
+            SpreadsheetModel loaded = SpreadsheetTextFormat.read(file, fraction -> {
+            }, minChunkBytes);
+            for (int row = 0; row < 200; row++) {
+                for (int column = 0; column < 6; column++) {
+                    Cell expected = model.findCell(row, column);
+                    Cell actual = loaded.findCell(row, column);
+                    assertEquals(expected != null ? expected.getContent() : "",
+                            actual != null ? actual.getContent() : "", minChunkBytes + " : " + row + "," + column);
+                }
+            }
+        }
+    }
+
+    @Test
+    void chunksKeepCrLfLinesAndLastRepeatedCell() throws IOException {
+        Path file = directory.resolve("sheet.e4e");
+        StringBuilder text = new StringBuilder("3,2\r\n");
+        for (int i = 0; i < 50; i++) {
+            text.append(i % 3).append(',').append(i % 2).append(';').append("v").append(i).append("\r\n");
+        }
+        // Dernière ligne sans fin de ligne, contenu vide
+        text.append("2,1;");
+        Files.write(file, text.toString().getBytes(Charset.defaultCharset()));
+
+        for (int minChunkBytes : new int[]{1, 5, 13, 1 << 20}) {
+            SpreadsheetModel loaded = SpreadsheetTextFormat.read(file, fraction -> {
+            }, minChunkBytes);
+            assertEquals("v48", loaded.findCell(0, 0).getContent(), Integer.toString(minChunkBytes));
+            assertEquals("v49", loaded.findCell(1, 1).getContent(), Integer.toString(minChunkBytes));
+            assertEquals("v46", loaded.findCell(1, 0).getContent(), Integer.toString(minChunkBytes));
+            assertEquals("", loaded.findCell(2, 1).getContent(), Integer.toString(minChunkBytes));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package excel.view;
+
+import excel.model.SpreadsheetModel;
+import excel.viewmodel.SpreadsheetViewModel;
+import javafx.beans.property.StringProperty;
+import org.controlsfx.control.spreadsheet.SpreadsheetCell;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LazyGridRowsTest {
+    @Test
+    void rowsOnScreenAreNotEvicted() {
+        SpreadsheetViewModel viewModel = new SpreadsheetViewModel(new SpreadsheetModel(20, 3));
+        LazyGridRows gridRows = new LazyGridRows(viewModel, 20, 3, 4);
+        gridRows.setRowOnScreen(row -> row == 0);
+        List<? extends List<SpreadsheetCell>> rows = gridRows.getRows();
+
+        SpreadsheetCell shown = rows.get(0).get(0);
+        SpreadsheetCell scrolled = rows.get(1).get(0);
+        for (int row = 2; row < 20; row++) {
+            rows.get(row).get(0);
+        }
+
+        assertEquals(4, gridRows.getBoundCount());
+        assertSame(shown, rows.get(0).get(0));
+        assertNotSame(scrolled, rows.get(1).get(0));
+        viewModel.getCellValueProperty(0, 0).set("42");
+        assertEquals("42", shown.getItem());
+    }
+
+    @Test
+    void keptBindingsShowTheNewModelAfterResize() {
+        SpreadsheetModel oldModel = new SpreadsheetModel(10, 3);
+        oldModel.setCellContentSilently(0, 0, "old");
+        oldModel.setCellContentSilently(5, 2, "1");
+        SpreadsheetViewModel viewModel = new SpreadsheetViewModel(oldModel);
+        LazyGridRows gridRows = new LazyGridRows(viewModel, 10, 3, 100);
+        List<? extends List<SpreadsheetCell>> rows = gridRows.getRows();
+        SpreadsheetCell topLeft = rows.get(0).get(0);
+        SpreadsheetCell middle = rows.get(5).get(2);
+        rows.get(9).get(1);
+        assertEquals("old", topLeft.getItem());
+        StringProperty oldValue = viewModel.getCellValueProperty(0, 0);
+
+        // Moins de lignes, une colonne de plus : la cellule de la ligne 10 sort de la feuille
+        SpreadsheetModel newModel = new SpreadsheetModel(6, 4);
+        newModel.setCellContentSilently(0, 0, "new");
+        newModel.setCellContentSilently(5, 2, "=1+2");
+        newModel.setCellContentSilently(0, 3, "added");
+        viewModel.setModel(newModel);
+
+        assertTrue(gridRows.rebind(6, 4));
+        assertEquals(6, rows.size());
+        assertEquals(4, rows.get(0).size());
+        assertEquals(2, gridRows.getBoundCount());
+        assertSame(topLeft, rows.get(0).get(0));
+        assertSame(middle, rows.get(5).get(2));
+        assertEquals("new", topLeft.getItem());
+        assertEquals("3", middle.getItem());
+        assertEquals("added", rows.get(0).get(3).getItem());
+
+        // Les cellules gardées suivent les propriétés du nouveau modèle, plus celles de l'ancien
+        oldValue.set("stale");
+        assertEquals("new", topLeft.getItem());
+        viewModel.getCellValueProperty(0, 0).set("shown");
+        assertEquals("shown", topLeft.getItem());
+    }
+}
@@ -0,0 +1,47 @@
+package excel.viewmodel;
+
+import excel.model.SpreadsheetModel;
+import javafx.beans.property.StringProperty;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CellBindingsTest {
+    @Test
+    void severalWritesAreFlushedOnceWithTheirFinalValues() {
+        SpreadsheetModel model = new SpreadsheetModel(10, 3);
+        model.setCellContentSilently(0, 0, "1");
+        model.setCellContentSilently(0, 1, "=A1*2");
+        // Tâches confiées au thread JavaFX, exécutées à la main
+        List<Runnable> scheduled = new ArrayList<>();
+        CellBindings bindings = new CellBindings(model, scheduled::add);
+        StringProperty a1 = bindings.displayValueProperty(0, 0);
+        StringProperty b1 = bindings.displayValueProperty(0, 1);
+        List<String> shown = new ArrayList<>();
+        b1.addListener((observable, oldValue, newValue) -> shown.add(newValue));
+
+        for (int value = 2; value <= 5; value++) {
+            model.setCellContentSilently(0, 0, Integer.toString(value));
+        }
+        // Une cellule non liée ne déclenche pas de rafraîchissement de plus
+        model.setCellContentSilently(5, 2, "7");
+
+        assertEquals(1, scheduled.size());
+        assertEquals("1", a1.get());
+        assertEquals("2", b1.get());
+
+        scheduled.get(0).run();
+
+        assertEquals("5", a1.get());
+        assertEquals(List.of("10"), shown);
+
+        // Après le rafraîchissement, une nouvelle écriture en programme un autre
+        model.setCellContentSilently(0, 0, "6");
+        assertEquals(2, scheduled.size());
+        scheduled.get(1).run();
+        assertEquals(List.of("10", "12"), shown);
+    }
+}